@@ -0,0 +1,164 @@
+package com.example.School_feeding_managment_system.Service;
+
+import com.example.School_feeding_managment_system.Model.DeliveryApproval;
+import com.example.School_feeding_managment_system.Repository.DeliveryApprovalRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Current approval state of each meal plan, kept in memory so dashboards resolve approvals
+ * without a query per plan.
+ * Plans not seen yet are loaded together, in one query per lookup. After that the state is
+ * replaced when a new approval is committed and reloaded when an approval is changed or removed.
+ * States, including "no approval yet", expire after a time to live, so approvals written past
+ * Hibernate or on another node are picked up too.
+ */
+@Component
+public class ApprovalStateIndex {
+
+    // Past this many plans the index starts over rather than growing forever
+    private static final int MAX_PLANS = 50_000;
+
+    // Generations are striped by plan id; a collision only drops a load that was still valid
+    private static final int GENERATION_STRIPES = 4096;
+
+    @Autowired
+    private DeliveryApprovalRepository approvalRepo;
+
+    @Autowired
+    private DashboardMetrics metrics;
+
+    private final Map<Long, Entry> statesByPlanId = new ConcurrentHashMap<>();
+
+    // Bumped whenever a plan's state is recorded or evicted, so a load that overlapped it is not kept
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * Latest approval state of each given plan; plans that were never reviewed are absent
+     */
+    public Map<Long, ApprovalState> getStates(Collection<Long> mealPlanIds) {
+        long now = System.currentTimeMillis();
+        Map<Long, ApprovalState> states = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long mealPlanId : mealPlanIds) {
+            if (mealPlanId == null) {
+                continue;
+            }
+            Entry entry = statesByPlanId.get(mealPlanId);
+            if (entry == null || !entry.isFresh(now)) {
+                missing.add(mealPlanId);
+            } else if (entry.state() != ApprovalState.NONE) {
+                states.put(mealPlanId, entry.state());
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            load(missing).forEach((mealPlanId, state) -> {
+                if (state != ApprovalState.NONE) {
+                    states.put(mealPlanId, state);
+                }
+            });
+        }
+        return states;
+    }
+
+    public Set<Long> getApprovedIds(Collection<Long> mealPlanIds) {
+        Set<Long> approved = new HashSet<>();
+        getStates(mealPlanIds).forEach((mealPlanId, state) -> {
+            if (state.isApproved()) {
+                approved.add(mealPlanId);
+            }
+        });
+        return approved;
+    }
+
+    public boolean isApproved(Long mealPlanId) {
+        return getApprovedIds(List.of(mealPlanId)).contains(mealPlanId);
+    }
+
+    /**
+     * A committed new approval is the latest one of its plan
+     */
+    public void record(DeliveryApproval approval) {
+        if (approval.getMealPlan() == null || approval.getMealPlan().getId() == null) {
+            return;
+        }
+        Long mealPlanId = approval.getMealPlan().getId();
+        generations.incrementAndGet(stripe(mealPlanId));
+        statesByPlanId.put(mealPlanId, new Entry(ApprovalState.of(approval), System.currentTimeMillis()));
+    }
+
+    /**
+     * Forgets the plan's state after one of its approvals was changed or removed
+     */
+    public void evict(Long mealPlanId) {
+        if (mealPlanId == null) {
+            return;
+        }
+        generations.incrementAndGet(stripe(mealPlanId));
+        statesByPlanId.remove(mealPlanId);
+    }
+
+    public int size() {
+        return statesByPlanId.size();
+    }
+
+    /**
+     * Loads the given plans' states and returns them. They are only kept if no approval of
+     * the plan was recorded or evicted meanwhile, since what was read may predate that change.
+     */
+    private Map<Long, ApprovalState> load(Set<Long> mealPlanIds) {
+        if (statesByPlanId.size() + mealPlanIds.size() > MAX_PLANS) {
+            statesByPlanId.clear();
+        }
+
+        Map<Long, Long> loadGenerations = new HashMap<>();
+        for (Long mealPlanId : mealPlanIds) {
+            loadGenerations.put(mealPlanId, generations.get(stripe(mealPlanId)));
+        }
+
+        // Approvals come newest first, so the first one seen per plan is the latest
+        Map<Long, ApprovalState> loaded = new HashMap<>();
+        metrics.query("approval_load", () -> approvalRepo.findLatestByMealPlanIdIn(mealPlanIds))
+                .forEach(da -> loaded.putIfAbsent(da.getMealPlan().getId(), ApprovalState.of(da)));
+
+        long loadedAt = System.currentTimeMillis();
+        for (Long mealPlanId : mealPlanIds) {
+            ApprovalState state = loaded.computeIfAbsent(mealPlanId, id -> ApprovalState.NONE);
+            long loadGeneration = loadGenerations.get(mealPlanId);
+            // Checked under the entry's lock, so a concurrent record or evict either wins or runs after
+            statesByPlanId.compute(mealPlanId, (id, current) ->
+                    generations.get(stripe(id)) == loadGeneration ? new Entry(state, loadedAt) : current);
+        }
+        return loaded;
+    }
+
+    private int stripe(Long mealPlanId) {
+        return Math.floorMod(mealPlanId.hashCode(), GENERATION_STRIPES);
+    }
+
+    private record Entry(ApprovalState state, long loadedAt) {
+
+        boolean isFresh(long now) {
+            return now - loadedAt < DashboardMealWindowCache.TIME_TO_LIVE_MILLIS;
+        }
+    }
+
+    public record ApprovalState(DeliveryApproval.ApprovalStatus status, String reason) {
+
+        // Marks plans known to have no approval yet
+        private static final ApprovalState NONE = new ApprovalState(null, null);
+
+        static ApprovalState of(DeliveryApproval approval) {
+            return new ApprovalState(approval.getStatus(), approval.getReason());
+        }
+
+        public boolean isApproved() {
+            return status == DeliveryApproval.ApprovalStatus.APPROVED;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,223 @@
+package com.example.School_feeding_managment_system.Service;
+
+import com.example.School_feeding_managment_system.Repository.MealDistributionRepository;
+import com.example.School_feeding_managment_system.Repository.MealDistributionSummary;
+import com.example.School_feeding_managment_system.Repository.MealRoundCounterRepository;
+import com.example.School_feeding_managment_system.Repository.RoundCountRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Attendance counters per distribution, per round and per day, plus a bitmap per student of the
+ * rounds taken, so reports don't have to scan attendance.
+ * The counters live in the database so every node reads the same numbers. Registrations are
+ * queued here once committed and written every second in batches, one statement per counter row,
+ * so registering never waits on a counter row and a counter failure never fails a registration.
+ * A day adds up the counters of its distributions, a handful of rows.
+ * Registrations queued when a node dies and attendance changed other than through registration
+ * are not counted; the nightly reconciliation compares recent distributions with their attendance
+ * rows and rebuilds the ones that drifted.
+ */
+@Component
+public class AttendanceAggregates {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceAggregates.class);
+
+    // How many days back the nightly job reconciles
+    private static final int RECONCILED_DAYS = 14;
+
+    // Rounds are stored as bits of a signed BIGINT, leaving the sign bit alone
+    private static final int MAX_BITMAP_ROUND = Long.SIZE - 1;
+
+    @Autowired
+    private MealRoundCounterRepository roundCounterRepo;
+
+    @Autowired
+    private MealDistributionRepository distributionRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DashboardMetrics metrics;
+
+    @Autowired
+    private Clock clock;
+
+    private final LongAdder reconciliationMismatches = new LongAdder();
+
+    // Registrations committed but not yet written, drained by flush()
+    private final ConcurrentHashMap<RoundKey, Long> pendingRounds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<StudentKey, Long> pendingStudentRounds = new ConcurrentHashMap<>();
+
+    /**
+     * Queues a committed registration for the next flush. Only touches memory, so it is safe
+     * to call right after the registration commits.
+     */
+    public void recordRegistration(String studentId, Long distributionId, int round) {
+        pendingRounds.merge(new RoundKey(distributionId, round), 1L, Long::sum);
+        if (round <= MAX_BITMAP_ROUND) {
+            pendingStudentRounds.merge(new StudentKey(studentId, distributionId), 1L << (round - 1), (a, b) -> a | b);
+        }
+    }
+
+    /**
+     * Writes the queued registrations. Each counter row is its own short statement, so this never
+     * holds one row while waiting for another. An addition that fails is logged and dropped; the
+     * nightly reconciliation restores what it would have added.
+     */
+    @Scheduled(fixedDelay = 1_000)
+    public void flush() {
+        for (RoundKey key : pendingRounds.keySet()) {
+            // Removing first means a registration queued meanwhile starts a new entry for the next flush
+            Long registrations = pendingRounds.remove(key);
+            if (registrations == null) {
+                continue;
+            }
+            try {
+                metrics.query("round_counter_flush", () -> transactionTemplate.execute(status ->
+                        roundCounterRepo.add(key.distributionId(), key.round(), registrations)));
+            } catch (RuntimeException e) {
+                log.warn("Could not add {} registrations to round {} of distribution {}",
+                        registrations, key.round(), key.distributionId(), e);
+            }
+        }
+
+        for (StudentKey key : pendingStudentRounds.keySet()) {
+            Long rounds = pendingStudentRounds.remove(key);
+            if (rounds == null) {
+                continue;
+            }
+            try {
+                metrics.query("student_rounds_flush", () -> transactionTemplate.execute(status ->
+                        roundCounterRepo.addStudentRounds(key.studentId(), key.distributionId(), rounds)));
+            } catch (RuntimeException e) {
+                log.warn("Could not record the rounds of student {} in distribution {}",
+                        key.studentId(), key.distributionId(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Rounds the student took in the distribution, in order. Lags registrations by up to a flush,
+     * so registration itself still checks the attendance rows.
+     */
+    public List<Integer> getRoundsTaken(String studentId, Long distributionId) {
+        long bits = metrics.query("student_rounds_read",
+                () -> roundCounterRepo.findStudentRounds(studentId, distributionId)).orElse(0L);
+        List<Integer> rounds = new ArrayList<>(Long.bitCount(bits));
+        for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {
+            rounds.add(Long.numberOfTrailingZeros(remaining) + 1);
+        }
+        return rounds;
+    }
+
+    public DistributionCounts getDistributionCounts(Long distributionId) {
+        LocalDate date = metrics.query("distribution_lookup", () -> distributionRepo.findSummaryById(distributionId))
+                .map(MealDistributionSummary::getDistributionDate)
+                .orElseThrow(() -> new IllegalArgumentException("Meal distribution not found"));
+
+        Map<Integer, Long> rounds = byRound(metrics.query("round_counter_read",
+                () -> roundCounterRepo.findByDistributionId(distributionId)));
+        return new DistributionCounts(distributionId, date, total(rounds), rounds);
+    }
+
+    public DayCounts getDayCounts(LocalDate date) {
+        int distributions = metrics.query("distribution_ids_by_date",
+                () -> distributionRepo.findIdsByDistributionDate(date)).size();
+        long registrations = metrics.query("round_counter_day_read", () -> roundCounterRepo.findByDistributionDate(date))
+                .stream()
+                .mapToLong(RoundCountRow::getRegistrations)
+                .sum();
+        return new DayCounts(date, distributions, registrations);
+    }
+
+    public long getReconciliationMismatchCount() {
+        return reconciliationMismatches.sum();
+    }
+
+    /**
+     * Compares the counters and student bitmaps of the distributions of the last days with their
+     * attendance rows and rebuilds the ones that drifted
+     */
+    @Scheduled(cron = "0 30 2 * * *")
+    public void reconcile() {
+        LocalDate today = LocalDate.now(clock);
+        int checked = 0;
+        int mismatched = 0;
+
+        for (LocalDate date = today.minusDays(RECONCILED_DAYS); !date.isAfter(today); date = date.plusDays(1)) {
+            for (Long distributionId : distributionRepo.findIdsByDistributionDate(date)) {
+                checked++;
+                Map<Integer, Long> counted = byRound(roundCounterRepo.findByDistributionId(distributionId));
+                Map<Integer, Long> actual = byRound(roundCounterRepo.countAttendanceByDistributionId(distributionId));
+                long studentRounds = roundCounterRepo.countStudentRoundBits(distributionId);
+                if (counted.equals(actual) && studentRounds == countBitmapRounds(actual)) {
+                    continue;
+                }
+
+                mismatched++;
+                reconciliationMismatches.increment();
+                log.warn("Attendance counters of distribution {} drifted: {} registrations counted, {} in attendance",
+                        distributionId, total(counted), total(actual));
+                transactionTemplate.executeWithoutResult(status -> {
+                    roundCounterRepo.deleteByDistributionId(distributionId);
+                    roundCounterRepo.insertFromAttendance(distributionId);
+                    roundCounterRepo.deleteStudentRoundsByDistributionId(distributionId);
+                    roundCounterRepo.insertStudentRoundsFromAttendance(distributionId);
+                });
+            }
+        }
+
+        log.info("Reconciled attendance counters of {} distributions, {} drifted", checked, mismatched);
+    }
+
+    private Map<Integer, Long> byRound(List<RoundCountRow> rows) {
+        Map<Integer, Long> rounds = new TreeMap<>();
+        for (RoundCountRow row : rows) {
+            rounds.merge(row.getRound(), row.getRegistrations(), Long::sum);
+        }
+        return rounds;
+    }
+
+    private long total(Map<Integer, Long> rounds) {
+        return rounds.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Registrations that have a bit in the student bitmaps
+    private long countBitmapRounds(Map<Integer, Long> rounds) {
+        return rounds.entrySet().stream()
+                .filter(e -> e.getKey() <= MAX_BITMAP_ROUND)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    private record RoundKey(Long distributionId, int round) {
+    }
+
+    private record StudentKey(String studentId, Long distributionId) {
+    }
+
+    public record DistributionCounts(Long distributionId, LocalDate distributionDate, long registrations,
+                                     Map<Integer, Long> registrationsByRound) {
+    }
+
+    public record DayCounts(LocalDate date, int distributions, long registrations) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.example.School_feeding_managment_system.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Flat read-only view of one attendance joined with its distribution and the student's school,
+ * as read by the streaming attendance export
+ */
+public interface AttendanceExportRow {
+
+    Long getAttendanceId();
+
+    LocalDate getDistributionDate();
+
+    Long getDistributionId();
+
+    Enum<?> getMealType();
+
+    Long getSchoolId();
+
+    String getSchoolName();
+
+    String getStudentId();
+
+    Integer getRound();
+
+    Enum<?> getStatus();
+
+    LocalTime getTakenAt();
+}
\ No newline at end of file
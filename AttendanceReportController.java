@@ -0,0 +1,59 @@
+package com.example.School_feeding_managment_system.Controller;
+
+import com.example.School_feeding_managment_system.Service.AttendanceAggregates;
+import com.example.School_feeding_managment_system.Service.ReportAccessGuard;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Attendance counts for end-of-day and school reports, read from the precomputed counters
+ * instead of scanning attendance. Open to admins, auditors and parents.
+ */
+@RestController
+@RequestMapping("/api/reports/attendance")
+public class AttendanceReportController {
+
+    @Autowired
+    private AttendanceAggregates attendanceAggregates;
+
+    @Autowired
+    private ReportAccessGuard reportAccess;
+
+    @GetMapping("/distribution/{distributionId}")
+    public ResponseEntity<?> getDistributionCounts(@PathVariable Long distributionId, HttpServletRequest request) {
+        if (!reportAccess.canReadReports(request)) {
+            return denied(request);
+        }
+
+        try {
+            return ResponseEntity.ok(attendanceAggregates.getDistributionCounts(distributionId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/day")
+    public ResponseEntity<?> getDayCounts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            HttpServletRequest request) {
+        if (!reportAccess.canReadReports(request)) {
+            return denied(request);
+        }
+        return ResponseEntity.ok(attendanceAggregates.getDayCounts(date));
+    }
+
+    private ResponseEntity<?> denied(HttpServletRequest request) {
+        if (!reportAccess.isAuthenticated(request)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not logged in"));
+        }
+        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "Reports require one of the roles " + ReportAccessGuard.REPORT_ROLES));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.example.School_feeding_managment_system.Config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * The clock every time-dependent check reads, so tests and load runs can pin "now"
+ */
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.example.School_feeding_managment_system.Service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs BCrypt password checks on a small dedicated pool instead of on request threads.
+ * The queue in front of the pool is bounded: when it is full, logins are rejected right away
+ * rather than piling up. Callers get a future, so no web thread waits for a check either.
+ * The queue is kept well below the web thread pool, so a login storm is shed before it
+ * reaches the other endpoints.
+ */
+@Component
+public class CredentialVerifier {
+
+    private static final String OVERLOADED = "Too many logins at the moment, please try again shortly";
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public CredentialVerifier(@Value("${sfms.auth.bcrypt-threads:4}") int threads,
+                              @Value("${sfms.auth.bcrypt-queue-capacity:64}") int queueCapacity,
+                              @Value("${sfms.auth.bcrypt-timeout-ms:5000}") long timeoutMillis) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Checks the password against its BCrypt hash without blocking the caller.
+     * The future fails with IllegalStateException when the pool is overloaded or the check
+     * runs past its timeout, so callers can ask the client to retry.
+     */
+    public CompletableFuture<Boolean> matchesAsync(String rawPassword, String encodedPassword) {
+        long submittedAt = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        CompletableFuture<Boolean> result;
+        try {
+            result = CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitNanos.add(startedAt - submittedAt);
+                if (startedAt - submittedAt > timeoutNanos) {
+                    // Already timed out while queued; nobody reads this result, so skip the hash
+                    return false;
+                }
+                try {
+                    return passwordEncoder.matches(rawPassword, encodedPassword);
+                } finally {
+                    verifyNanos.add(System.nanoTime() - startedAt);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new IllegalStateException(OVERLOADED));
+        }
+
+        return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).handle((matches, e) -> {
+            if (e == null) {
+                verified.increment();
+                maxLatencyNanos.accumulateAndGet(System.nanoTime() - submittedAt, Math::max);
+                return matches;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                timedOut.increment();
+                throw new IllegalStateException(OVERLOADED);
+            }
+            throw new IllegalStateException("Password check failed", cause);
+        });
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public long getVerifiedCount() {
+        return verified.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    public long getTotalQueueWaitNanos() {
+        return queueWaitNanos.sum();
+    }
+
+    public long getTotalVerifyNanos() {
+        return verifyNanos.sum();
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.example.School_feeding_managment_system.Service;
+
+import com.example.School_feeding_managment_system.Model.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Evicts cached dashboard state once a change to it has been committed:
+ * meal windows and distribution descriptors when a distribution, its items, a food or a
+ * delivery approval changes, and cached photos when a student is updated.
+ * Committed approvals are added to the approval index.
+ * Changes to today's meals and approvals are also passed on to live dashboard subscribers.
+ */
+@Component
+public class DashboardCacheInvalidator implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DashboardMealWindowCache mealWindowCache;
+
+    @Autowired
+    private StudentPhotoService photoService;
+
+    @Autowired
+    private ServingStatusBroadcaster servingStatusBroadcaster;
+
+    @Autowired
+    private ApprovalStateIndex approvalIndex;
+
+    @Autowired
+    private ServingScheduleIndex servingSchedule;
+
+    @Autowired
+    private Clock clock;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof MealAttendance) {
+            // Registrations change no cached state; their counters are written in the registration transaction
+            return;
+        }
+        // Update the index first so windows rebuilt after the eviction see the new approval
+        if (event.getEntity() instanceof DeliveryApproval approval) {
+            approvalIndex.record(approval);
+        }
+        evictFor(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        evictApproval(event.getEntity());
+        evictFor(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        evictApproval(event.getEntity());
+        evictFor(event.getEntity());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing was written, the cache is still valid
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was written, the cache is still valid
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was written, the cache is still valid
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    /**
+     * A changed or removed approval may no longer be the latest of its plan
+     */
+    private void evictApproval(Object entity) {
+        if (entity instanceof DeliveryApproval approval && approval.getMealPlan() != null) {
+            approvalIndex.evict(approval.getMealPlan().getId());
+        }
+    }
+
+    private void evictFor(Object entity) {
+        if (entity instanceof MealDistribution dist) {
+            mealWindowCache.invalidateDistribution(dist.getId());
+            if (dist.getDistributionDate() != null) {
+                mealWindowCache.invalidate(dist.getDistributionDate());
+
+                LocalDate today = LocalDate.now(clock);
+                if (!dist.getDistributionDate().isBefore(today)) {
+                    servingSchedule.markDirty();
+                }
+                if (dist.getDistributionDate().equals(today)) {
+                    servingStatusBroadcaster.requestReschedule();
+                }
+            }
+        } else if (entity instanceof DistributionItem || entity instanceof DeliveryApproval
+                || entity instanceof Food) {
+            // Items, approvals and foods don't carry the distribution date directly
+            mealWindowCache.invalidateAll();
+            if (entity instanceof DeliveryApproval approval) {
+                servingStatusBroadcaster.approvalChanged(approval);
+            }
+        } else if (entity instanceof Student student) {
+            photoService.evict(student.getStudentId());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.example.School_feeding_managment_system.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Carries live dashboard events between app nodes, so a student whose stream is held by one node
+ * also hears about a registration or an approval handled by another.
+ * Events are appended to the dashboard_event table and every node polls it every second,
+ * republishing what it finds as a {@link RelayedEvent} for its own subscribers.
+ * Expects this table:
+ * <pre>
+ * CREATE TABLE dashboard_event (
+ *     id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+ *     student_id VARCHAR(64),
+ *     name       VARCHAR(32)  NOT NULL,
+ *     payload    VARCHAR(1024) NOT NULL,
+ *     created_at DATETIME     NOT NULL,
+ *     INDEX idx_dashboard_event_created_at (created_at)
+ * );
+ * </pre>
+ */
+@Component
+public class DashboardEventRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardEventRelay.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    // Events are only hints to refresh a dashboard, nobody reads them this late
+    private static final long RETENTION_MINUTES = 60;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO dashboard_event (student_id, name, payload, created_at) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_SQL =
+            "SELECT id, student_id, name, payload FROM dashboard_event WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Clock clock;
+
+    private final ExecutorService publishExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Id of the last event handed to subscribers; negative until the first poll found where to start
+    private volatile long lastSeenId = -1;
+
+    /**
+     * Sends an event to the student's subscribers on every node, or to all subscribers when
+     * studentId is null. The row is written on a virtual thread, never on the caller's, which is
+     * often a commit callback.
+     */
+    public void publish(String studentId, String name, Map<String, Object> data) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event data is not serializable", e);
+        }
+        LocalDateTime createdAt = LocalDateTime.now(clock);
+
+        publishExecutor.execute(() -> {
+            try {
+                jdbcTemplate.update(INSERT_SQL, studentId, name, payload, createdAt);
+            } catch (DataAccessException e) {
+                // Subscribers only miss a hint; their next dashboard load is still correct
+                log.warn("Could not publish dashboard event {}", name, e);
+            }
+        });
+    }
+
+    /**
+     * Hands the events published since the last poll, by any node, to this node's subscribers.
+     * Inserts are single autocommit statements, so ids become visible practically in order.
+     */
+    @Scheduled(fixedDelay = 1_000)
+    public void poll() {
+        if (lastSeenId < 0) {
+            // Start after what is already there; nobody on this node subscribed to older events
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM dashboard_event", Long.class);
+            lastSeenId = maxId != null ? maxId : 0;
+            return;
+        }
+
+        List<RelayedEvent> events = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new RelayedEvent(
+                rs.getLong("id"),
+                rs.getString("student_id"),
+                rs.getString("name"),
+                parse(rs.getString("payload"))
+        ), lastSeenId, BATCH_SIZE);
+
+        for (RelayedEvent event : events) {
+            lastSeenId = event.id();
+            if (event.data() != null) {
+                eventPublisher.publishEvent(event);
+            }
+        }
+    }
+
+    @Scheduled(cron = "0 */15 * * * *")
+    public void purge() {
+        int removed = jdbcTemplate.update("DELETE FROM dashboard_event WHERE created_at < ?",
+                LocalDateTime.now(clock).minusMinutes(RETENTION_MINUTES));
+        log.debug("Purged {} relayed dashboard events", removed);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        publishExecutor.shutdown();
+    }
+
+    private Map<String, Object> parse(String payload) {
+        try {
+            return objectMapper.readValue(payload, PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping unreadable dashboard event payload", e);
+            return null;
+        }
+    }
+
+    /**
+     * An event read back from the relay; a null studentId means every subscriber
+     */
+    public record RelayedEvent(long id, String studentId, String name, Map<String, Object> data) {
+    }
+}
\ No newline at end of file
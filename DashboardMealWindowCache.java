@@ -0,0 +1,326 @@
+package com.example.School_feeding_managment_system.Service;
+
+import com.example.School_feeding_managment_system.DTO.FoodItemDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Shared cache of the student dashboard meal window.
+ * The approved, already mapped meals of a window are the same for every student,
+ * so they are built once per window start date and reused; only the student's
+ * registered rounds are overlaid per request.
+ */
+@Component
+public class DashboardMealWindowCache {
+
+    /**
+     * Upper bound on staleness for changes that bypass Hibernate (e.g. native SQL).
+     * Every dashboard cache expires on this, so none of them serves data older than the windows.
+     */
+    public static final long TIME_TO_LIVE_MILLIS = 5 * 60 * 1000L;
+    private static final int MAX_WINDOWS = 64;
+
+    @Autowired
+    private Clock clock;
+
+    // Values are futures so loads run outside the map's locks; concurrent callers wait on the same future
+    private final ConcurrentHashMap<LocalDate, CompletableFuture<MealWindow>> windows = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CompletableFuture<CachedDistribution>> distributions = new ConcurrentHashMap<>();
+
+    // Bumped by every invalidation, so a load that overlapped one is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Returns the cached window starting at fromDate, building it with the loader when absent or stale.
+     * Concurrent callers for the same window wait for a single load instead of all hitting the database.
+     */
+    public MealWindow get(LocalDate fromDate, Function<LocalDate, MealWindow> loader) {
+        LocalDate today = LocalDate.now(clock);
+        long now = System.currentTimeMillis();
+
+        Lookup<MealWindow> lookup = lookup(windows, fromDate, window -> window.isFresh(today, now), loader);
+
+        MealWindow window = lookup.value();
+        window.touch();
+        if (lookup.loaded()) {
+            misses.incrementAndGet();
+            if (lookup.replacedStale()) {
+                evictions.incrementAndGet();
+            }
+            trimToSize();
+        } else {
+            hits.incrementAndGet();
+        }
+        return window;
+    }
+
+    /**
+     * Returns the lightweight descriptor of a distribution, reloaded at most every time to live like the windows.
+     * Descriptors of past distributions are dropped, nobody registers for them anymore.
+     */
+    public DistributionDescriptor getDistribution(Long distributionId, Function<Long, DistributionDescriptor> loader) {
+        long now = System.currentTimeMillis();
+        DistributionDescriptor descriptor = lookup(distributions, distributionId,
+                cached -> now - cached.loadedAt() < TIME_TO_LIVE_MILLIS,
+                key -> new CachedDistribution(loader.apply(key), System.currentTimeMillis()))
+                .value().descriptor();
+
+        if (descriptor.distributionDate().isBefore(LocalDate.now(clock))) {
+            distributions.remove(distributionId);
+        }
+        return descriptor;
+    }
+
+    public void invalidateDistribution(Long distributionId) {
+        generation.incrementAndGet();
+        distributions.remove(distributionId);
+    }
+
+    /**
+     * Drops every cached window that covers the given date.
+     * Windows still loading are left to the generation check.
+     */
+    public void invalidate(LocalDate date) {
+        generation.incrementAndGet();
+        windows.entrySet().removeIf(entry -> {
+            MealWindow window = completedValue(entry.getValue());
+            boolean covers = window != null
+                    && !date.isBefore(window.getFromDate())
+                    && !date.isAfter(window.getToDate());
+            if (covers) {
+                evictions.incrementAndGet();
+            }
+            return covers;
+        });
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        evictions.addAndGet(windows.size());
+        windows.clear();
+        distributions.clear();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    /**
+     * Returns the value cached under the key, loading it when absent or no longer fresh.
+     * The caller that installs the future loads outside any map lock, so a virtual thread waiting
+     * for the database is never pinned inside the map; concurrent callers wait on the future.
+     */
+    private <K, V> Lookup<V> lookup(ConcurrentHashMap<K, CompletableFuture<V>> cache, K key,
+                                    Predicate<V> isFresh, Function<K, V> loader) {
+        while (true) {
+            CompletableFuture<V> cached = cache.get(key);
+            if (cached != null && !cached.isDone()) {
+                return new Lookup<>(await(cached), false, false);
+            }
+            V current = completedValue(cached);
+            if (current != null && isFresh.test(current)) {
+                return new Lookup<>(current, false, false);
+            }
+
+            CompletableFuture<V> loading = new CompletableFuture<>();
+            boolean installed = cached == null
+                    ? cache.putIfAbsent(key, loading) == null
+                    : cache.replace(key, cached, loading);
+            if (!installed) {
+                // Another caller started loading first; wait for that one instead
+                continue;
+            }
+
+            long loadGeneration = generation.get();
+            V value;
+            try {
+                value = loader.apply(key);
+            } catch (Throwable e) {
+                // Errors too, or waiters would block on a future nobody completes
+                cache.remove(key, loading);
+                loading.completeExceptionally(e);
+                throw e;
+            }
+            loading.complete(value);
+            if (generation.get() != loadGeneration) {
+                // Invalidated while loading: the value may predate the change, so serve it without keeping it
+                cache.remove(key, loading);
+            }
+            return new Lookup<>(value, true, current != null);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The value of a successfully completed future, or null while it is loading or after it failed
+     */
+    private static <V> V completedValue(CompletableFuture<V> future) {
+        return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    private void trimToSize() {
+        while (windows.size() > MAX_WINDOWS) {
+            // Evict the least recently used window: the start date comes from the client,
+            // so browsing far ahead must not push today's window out. Windows still loading stay.
+            Optional<Map.Entry<LocalDate, CompletableFuture<MealWindow>>> lru = windows.entrySet().stream()
+                    .filter(entry -> completedValue(entry.getValue()) != null)
+                    .min(Comparator.comparingLong(entry -> completedValue(entry.getValue()).lastAccessedAt));
+            if (lru.isEmpty()) {
+                return;
+            }
+            if (windows.remove(lru.get().getKey(), lru.get().getValue())) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private record Lookup<V>(V value, boolean loaded, boolean replacedStale) {
+    }
+
+    /**
+     * A single meal of the window, with everything that does not depend on the student
+     */
+    public record MealSlot(
+            Long distributionId,
+            LocalDate distributionDate,
+            String mealType,
+            LocalTime startDistributionTime,
+            LocalTime endDistributionTime,
+            int maxRounds,
+            List<FoodItemDTO> foods
+    ) {
+
+        public boolean isServingAt(LocalDateTime time) {
+            return isServing(distributionDate, startDistributionTime, endDistributionTime, time);
+        }
+    }
+
+    /**
+     * What registration needs to know about a distribution, without its items
+     */
+    public record DistributionDescriptor(
+            Long distributionId,
+            LocalDate distributionDate,
+            LocalTime startDistributionTime,
+            LocalTime endDistributionTime,
+            int maxRounds
+    ) {
+
+        public boolean isServingAt(LocalDateTime time) {
+            return isServing(distributionDate, startDistributionTime, endDistributionTime, time);
+        }
+    }
+
+    /**
+     * Whether a meal is being served at the given time; the end time itself is still served
+     */
+    static boolean isServing(LocalDate date, LocalTime start, LocalTime end, LocalDateTime time) {
+        if (date == null || start == null || end == null || !date.equals(time.toLocalDate())) {
+            return false;
+        }
+        LocalTime at = time.toLocalTime();
+        return !at.isBefore(start) && !at.isAfter(end);
+    }
+
+    private record CachedDistribution(DistributionDescriptor descriptor, long loadedAt) {
+    }
+
+    /**
+     * Meals of a window grouped by date. Built on one day it is never reused on the next,
+     * because which meals are shown depends on the current date.
+     */
+    public static final class MealWindow {
+
+        private final LocalDate fromDate;
+        private final LocalDate toDate;
+        private final LocalDate builtOn;
+        private final long builtAt;
+        private final Map<LocalDate, List<MealSlot>> mealsByDate;
+        private final List<Long> distributionIds;
+        private volatile long lastAccessedAt;
+
+        /**
+         * builtOn is the date the meals were selected for
+         */
+        public MealWindow(LocalDate fromDate, LocalDate toDate, LocalDate builtOn, Map<LocalDate, List<MealSlot>> mealsByDate) {
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+            this.builtOn = builtOn;
+            this.builtAt = System.currentTimeMillis();
+
+            Map<LocalDate, List<MealSlot>> copy = new TreeMap<>();
+            List<Long> ids = new ArrayList<>();
+            mealsByDate.forEach((date, slots) -> {
+                copy.put(date, List.copyOf(slots));
+                slots.forEach(slot -> ids.add(slot.distributionId()));
+            });
+            this.mealsByDate = Collections.unmodifiableMap(copy);
+            this.distributionIds = Collections.unmodifiableList(ids);
+        }
+
+        void touch() {
+            lastAccessedAt = System.nanoTime();
+        }
+
+        boolean isFresh(LocalDate today, long now) {
+            return builtOn.equals(today) && now - builtAt < TIME_TO_LIVE_MILLIS;
+        }
+
+        public LocalDate getFromDate() {
+            return fromDate;
+        }
+
+        public LocalDate getToDate() {
+            return toDate;
+        }
+
+        public Map<LocalDate, List<MealSlot>> getMealsByDate() {
+            return mealsByDate;
+        }
+
+        public List<Long> getDistributionIds() {
+            return distributionIds;
+        }
+    }
+}
\ No newline at end of file
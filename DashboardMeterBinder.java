@@ -0,0 +1,90 @@
+package com.example.School_feeding_managment_system.Service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the counters kept by the dashboard caches, the approval index, the BCrypt pool,
+ * the live stream, the attendance counters and the last warm-up
+ */
+@Component
+public class DashboardMeterBinder implements MeterBinder {
+
+    @Autowired
+    private DashboardMealWindowCache mealWindowCache;
+
+    @Autowired
+    private CredentialVerifier credentialVerifier;
+
+    @Autowired
+    private ServingStatusBroadcaster servingStatusBroadcaster;
+
+    @Autowired
+    private AttendanceAggregates attendanceAggregates;
+
+    @Autowired
+    private ApprovalStateIndex approvalIndex;
+
+    @Autowired
+    private DashboardWarmup warmup;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("sfms.cache.meal_window.requests", mealWindowCache, DashboardMealWindowCache::getHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("sfms.cache.meal_window.requests", mealWindowCache, DashboardMealWindowCache::getMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("sfms.cache.meal_window.evictions", mealWindowCache, DashboardMealWindowCache::getEvictionCount)
+                .register(registry);
+        Gauge.builder("sfms.cache.meal_window.size", mealWindowCache, DashboardMealWindowCache::size)
+                .register(registry);
+
+        Gauge.builder("sfms.approvals.index.size", approvalIndex, ApprovalStateIndex::size)
+                .register(registry);
+
+        Gauge.builder("sfms.auth.bcrypt.queue.depth", credentialVerifier, CredentialVerifier::getQueueDepth)
+                .register(registry);
+        Gauge.builder("sfms.auth.bcrypt.active", credentialVerifier, CredentialVerifier::getActiveCount)
+                .register(registry);
+        Gauge.builder("sfms.auth.bcrypt.pool.size", credentialVerifier, CredentialVerifier::getPoolSize)
+                .register(registry);
+        FunctionCounter.builder("sfms.auth.bcrypt.verified", credentialVerifier, CredentialVerifier::getVerifiedCount)
+                .register(registry);
+        FunctionCounter.builder("sfms.auth.bcrypt.rejected", credentialVerifier, CredentialVerifier::getRejectedCount)
+                .register(registry);
+        FunctionCounter.builder("sfms.auth.bcrypt.timed_out", credentialVerifier, CredentialVerifier::getTimedOutCount)
+                .register(registry);
+        FunctionCounter.builder("sfms.auth.bcrypt.queue.wait", credentialVerifier,
+                        v -> v.getTotalQueueWaitNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                .baseUnit("seconds")
+                .register(registry);
+        FunctionCounter.builder("sfms.auth.bcrypt.verify.time", credentialVerifier,
+                        v -> v.getTotalVerifyNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("sfms.auth.bcrypt.latency.max", credentialVerifier,
+                        v -> v.getMaxLatencyNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                .baseUnit("seconds")
+                .register(registry);
+
+        Gauge.builder("sfms.stream.subscribers", servingStatusBroadcaster, ServingStatusBroadcaster::getSubscriberCount)
+                .register(registry);
+
+        FunctionCounter.builder("sfms.attendance.aggregates.drifted", attendanceAggregates,
+                        AttendanceAggregates::getReconciliationMismatchCount)
+                .register(registry);
+
+        Gauge.builder("sfms.warmup.duration", warmup,
+                        w -> w.getLastDurationNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                .baseUnit("seconds")
+                .register(registry);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.example.School_feeding_managment_system.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation of the dashboard and registration hot paths.
+ * Operations get a percentile-histogram timer, their stages a sub-timer, database round trips
+ * a per-stage query counter and refused registrations a per-reason counter.
+ * Dashboard stages that time out, and optional ones left out of a response, are counted per stage.
+ */
+@Component
+public class DashboardMetrics {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, Timer> operationTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> queryCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectionCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> timeoutCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> degradedCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Times a whole operation, e.g. "student_dashboard" or "meal_registration"
+     */
+    public <T> T time(String operation, Supplier<T> work) {
+        return operationTimer(operation).record(work);
+    }
+
+    /**
+     * Times an operation that completes asynchronously, until its future completes
+     */
+    public <T> CompletableFuture<T> timeAsync(String operation, Supplier<CompletableFuture<T>> work) {
+        Timer.Sample sample = Timer.start(registry);
+        return work.get().whenComplete((result, e) -> sample.stop(operationTimer(operation)));
+    }
+
+    public void time(String operation, Runnable work) {
+        time(operation, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Times an in-memory stage of an operation, e.g. "dto_mapping"
+     */
+    public <T> T stage(String stage, Supplier<T> work) {
+        return stageTimer(stage).record(work);
+    }
+
+    public <T> CompletableFuture<T> stageAsync(String stage, Supplier<CompletableFuture<T>> work) {
+        Timer.Sample sample = Timer.start(registry);
+        return work.get().whenComplete((result, e) -> sample.stop(stageTimer(stage)));
+    }
+
+    public void stage(String stage, Runnable work) {
+        stage(stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Times a stage that makes exactly one database round trip, and counts the query
+     */
+    public <T> T query(String stage, Supplier<T> work) {
+        queryCounters.computeIfAbsent(stage, name -> Counter.builder("sfms.queries")
+                .tag("stage", name)
+                .register(registry)).increment();
+        return stage(stage, work);
+    }
+
+    public void rejection(String reason) {
+        rejectionCounters.computeIfAbsent(reason, name -> Counter.builder("sfms.meal.registration.rejected")
+                .tag("reason", name)
+                .register(registry)).increment();
+    }
+
+    public void timeout(String stage) {
+        timeoutCounters.computeIfAbsent(stage, name -> Counter.builder("sfms.dashboard.stage.timeouts")
+                .tag("stage", name)
+                .register(registry)).increment();
+    }
+
+    /**
+     * Counts a dashboard returned without an optional stage
+     */
+    public void degraded(String stage) {
+        degradedCounters.computeIfAbsent(stage, name -> Counter.builder("sfms.dashboard.degraded")
+                .tag("stage", name)
+                .register(registry)).increment();
+    }
+
+    private Timer operationTimer(String operation) {
+        return operationTimers.computeIfAbsent(operation, name -> Timer.builder("sfms.operation")
+                .tag("operation", name)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private Timer stageTimer(String stage) {
+        return stageTimers.computeIfAbsent(stage, name -> Timer.builder("sfms.operation.stage")
+                .tag("stage", name)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
\ No newline at end of file
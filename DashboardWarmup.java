@@ -0,0 +1,196 @@
+package com.example.School_feeding_managment_system.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the dashboard up at startup and again shortly before every serving window opens.
+ * Each run reloads the day's meal window, foods, approvals and meal descriptors into the caches,
+ * then runs the dashboard overlay and token code paths enough times for the JIT to compile them,
+ * and the full dashboard of one student, stages, futures and repository reads included,
+ * so the first students of the window don't pay the cold cost.
+ * Runs happen on their own thread; the scheduler only hands them over.
+ * Every run logs how long it took and how the cold and the warmed-up timings compare.
+ */
+@Component
+public class DashboardWarmup {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardWarmup.class);
+
+    @Autowired
+    private StudentDashboardService dashboardService;
+
+    @Autowired
+    private DashboardMealWindowCache mealWindowCache;
+
+    @Autowired
+    private ServingScheduleIndex servingSchedule;
+
+    @Autowired
+    private StudentTokenService tokenService;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private DashboardMetrics metrics;
+
+    @Autowired
+    private Clock clock;
+
+    // How long before a serving window opens the caches are warmed again.
+    // Kept below the meal window time to live, so the reloaded window is still fresh at the opening
+    @Value("${sfms.warmup.lead-minutes:3}")
+    private long leadMinutes;
+
+    // How many times each code path is run per warm-up
+    @Value("${sfms.warmup.iterations:2000}")
+    private int iterations;
+
+    // How many full dashboards are built per warm-up; each one reads the database
+    @Value("${sfms.warmup.dashboard-iterations:200}")
+    private int dashboardIterations;
+
+    // One run at a time, off the scheduler threads
+    private final ExecutorService warmupExecutor =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("dashboard-warmup").factory());
+
+    private ScheduledFuture<?> nextRun;
+
+    private volatile long lastDurationNanos;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpAtStartup() {
+        warmupExecutor.execute(() -> {
+            warmUp();
+            scheduleNextRun();
+        });
+    }
+
+    @PreDestroy
+    void shutdownWarmupExecutor() {
+        warmupExecutor.shutdownNow();
+    }
+
+    /**
+     * Plans the next run ahead of the next serving window, also after midnight when a new day's windows come in
+     */
+    @Scheduled(cron = "0 5 0 * * *")
+    public synchronized void scheduleNextRun() {
+        if (nextRun != null) {
+            nextRun.cancel(false);
+            nextRun = null;
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        Duration lead = Duration.ofMinutes(leadMinutes);
+
+        // The first window far enough ahead to warm up before it; closer ones were covered by the last run
+        LocalDateTime opening = servingSchedule.nextOpeningAfter(now);
+        while (opening != null && !opening.minus(lead).isAfter(now)) {
+            opening = servingSchedule.nextOpeningAfter(opening);
+        }
+        if (opening == null) {
+            return;
+        }
+
+        LocalDateTime runAt = opening.minus(lead);
+        // The scheduler fires on system time, so the wait is measured on the clock and applied to now
+        Duration delay = Duration.between(now, runAt);
+        nextRun = taskScheduler.schedule(() -> warmupExecutor.execute(() -> {
+            warmUp();
+            scheduleNextRun();
+        }), Instant.now().plus(delay));
+        log.info("Next dashboard warm-up at {}, before the serving window opening at {}", runAt, opening);
+    }
+
+    public void warmUp() {
+        long startedAt = System.nanoTime();
+        LocalDate today = LocalDate.now(clock);
+
+        try {
+            // Reload from the database so the window is fresh for the serving window ahead;
+            // the second load must then be served from the cache
+            mealWindowCache.invalidate(today);
+            long windowLoadStartedAt = System.nanoTime();
+            DashboardMealWindowCache.MealWindow window = metrics.stage("warmup_preload", () -> dashboardService.preloadDay(today));
+            long windowLoadNanos = System.nanoTime() - windowLoadStartedAt;
+
+            long cachedStartedAt = System.nanoTime();
+            dashboardService.preloadDay(today);
+            long cachedNanos = System.nanoTime() - cachedStartedAt;
+
+            long firstOverlayNanos = 0;
+            long lastOverlayNanos = 0;
+            for (int i = 0; i < iterations; i++) {
+                long overlayStartedAt = System.nanoTime();
+                dashboardService.overlayWithoutRounds(window);
+                long overlayNanos = System.nanoTime() - overlayStartedAt;
+                if (i == 0) {
+                    firstOverlayNanos = overlayNanos;
+                }
+                lastOverlayNanos = overlayNanos;
+
+                tokenService.resolveStudentId(tokenService.issue("warmup-" + i));
+            }
+
+            // The real path: concurrent stages, repository reads and the DTO mapping
+            long firstDashboardNanos = 0;
+            long lastDashboardNanos = 0;
+            Optional<String> studentId = dashboardService.findWarmupStudentId();
+            if (studentId.isPresent()) {
+                for (int i = 0; i < dashboardIterations; i++) {
+                    long dashboardStartedAt = System.nanoTime();
+                    dashboardService.getDashboard(studentId.get(), today);
+                    long dashboardNanos = System.nanoTime() - dashboardStartedAt;
+                    if (i == 0) {
+                        firstDashboardNanos = dashboardNanos;
+                    }
+                    lastDashboardNanos = dashboardNanos;
+                }
+            }
+
+            lastDurationNanos = System.nanoTime() - startedAt;
+            log.info("Dashboard warm-up for {} took {} ms: meal window {} ms cold, {} us cached ({} windows cached); "
+                            + "dashboard overlay {} us on the first run, {} us after {} runs; "
+                            + "full dashboard {} us on the first run, {} us after {} runs",
+                    today,
+                    TimeUnit.NANOSECONDS.toMillis(lastDurationNanos),
+                    TimeUnit.NANOSECONDS.toMillis(windowLoadNanos),
+                    TimeUnit.NANOSECONDS.toMicros(cachedNanos),
+                    mealWindowCache.size(),
+                    TimeUnit.NANOSECONDS.toMicros(firstOverlayNanos),
+                    TimeUnit.NANOSECONDS.toMicros(lastOverlayNanos),
+                    iterations,
+                    TimeUnit.NANOSECONDS.toMicros(firstDashboardNanos),
+                    TimeUnit.NANOSECONDS.toMicros(lastDashboardNanos),
+                    studentId.isPresent() ? dashboardIterations : 0);
+        } catch (RuntimeException e) {
+            // A failed warm-up only leaves the caches cold; requests load them as usual
+            log.warn("Dashboard warm-up for {} failed", today, e);
+        }
+    }
+
+    public long getLastDurationNanos() {
+        return lastDurationNanos;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.example.School_feeding_managment_system.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * Flat read-only view of one delivered food joined with its meal plan, vendor and school,
+ * as read by the streaming delivery export
+ */
+public interface DeliveryExportRow {
+
+    Long getDetailId();
+
+    Long getMealPlanId();
+
+    LocalDate getMealDate();
+
+    Long getSchoolId();
+
+    String getSchoolName();
+
+    Long getVendorId();
+
+    String getFoodName();
+
+    Integer getSuppliedQuantity();
+}
\ No newline at end of file
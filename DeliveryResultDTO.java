@@ -0,0 +1,35 @@
+package com.example.School_feeding_managment_system.DTO;
+
+/**
+ * Outcome of marking one meal plan delivered in a bulk delivery
+ */
+public class DeliveryResultDTO {
+
+    private final Long mealPlanId;
+    private final boolean success;
+    private final String status;
+    private final String error;
+
+    public DeliveryResultDTO(Long mealPlanId, boolean success, String status, String error) {
+        this.mealPlanId = mealPlanId;
+        this.success = success;
+        this.status = status;
+        this.error = error;
+    }
+
+    public Long getMealPlanId() {
+        return mealPlanId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.example.School_feeding_managment_system.Repository;
+
+/**
+ * Flat read-only view of one distribution item joined with its food
+ */
+public interface DistributionItemRow {
+
+    Long getItemId();
+
+    Long getDistributionId();
+
+    Long getFoodId();
+
+    String getFoodName();
+
+    Integer getDistributedQuantity();
+}
\ No newline at end of file
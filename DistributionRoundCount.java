@@ -0,0 +1,11 @@
+package com.example.School_feeding_managment_system.Repository;
+
+/**
+ * Number of distinct rounds a student registered for in one distribution
+ */
+public interface DistributionRoundCount {
+
+    Long getDistributionId();
+
+    Long getRounds();
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.example.School_feeding_managment_system.Service;
+
+import com.example.School_feeding_managment_system.Model.Food;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Resolves the display unit of a food from its name.
+ * Keywords are matched in a single pass over the name with an Aho-Corasick automaton, without
+ * lowercasing or copying the string, so nothing is cached: the unit always follows the name the
+ * caller has, including a food renamed on another node.
+ */
+@Component
+public class FoodUnitClassifier {
+
+    private static final String DEFAULT_UNIT = "serving";
+
+    // Checked in this order: the first unit with a matching keyword wins
+    private static final String[] UNITS = {"kg", "liters", "pieces"};
+    private static final String[][] KEYWORDS = {
+            {"rice", "beans", "yam", "cassava", "garri", "flour", "potato", "maize"},
+            {"oil", "water", "milk", "juice", "drink", "soda"},
+            {"bread", "egg", "chicken", "fish", "meat", "plantain", "banana", "apple", "orange"}
+    };
+
+    private static final int ALPHABET = 26;
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    // Automaton: transitions[state * ALPHABET + letter] -> next state; state 0 is the root
+    private static final int[] transitions;
+    // Best (lowest) unit index matched when reaching a state, NO_MATCH if none
+    private static final int[] matches;
+
+    static {
+        List<int[]> children = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        children.add(newNode());
+        outputs.add(NO_MATCH);
+
+        for (int unit = 0; unit < KEYWORDS.length; unit++) {
+            for (String keyword : KEYWORDS[unit]) {
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    int letter = keyword.charAt(i) - 'a';
+                    if (children.get(state)[letter] < 0) {
+                        children.get(state)[letter] = children.size();
+                        children.add(newNode());
+                        outputs.add(NO_MATCH);
+                    }
+                    state = children.get(state)[letter];
+                }
+                outputs.set(state, Math.min(outputs.get(state), unit));
+            }
+        }
+
+        int states = children.size();
+        transitions = new int[states * ALPHABET];
+        matches = new int[states];
+        int[] fail = new int[states];
+
+        // Breadth-first so every state's failure target is complete before its children need it
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int letter = 0; letter < ALPHABET; letter++) {
+            int child = children.get(0)[letter];
+            if (child < 0) {
+                transitions[letter] = 0;
+            } else {
+                transitions[letter] = child;
+                fail[child] = 0;
+                queue.add(child);
+            }
+        }
+        matches[0] = outputs.get(0);
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            matches[state] = Math.min(outputs.get(state), matches[fail[state]]);
+            for (int letter = 0; letter < ALPHABET; letter++) {
+                int child = children.get(state)[letter];
+                int fallback = transitions[fail[state] * ALPHABET + letter];
+                if (child < 0) {
+                    transitions[state * ALPHABET + letter] = fallback;
+                } else {
+                    transitions[state * ALPHABET + letter] = child;
+                    fail[child] = fallback;
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    public String unitOf(Food food) {
+        return unitOf(food.getName());
+    }
+
+    public String unitOf(String foodName) {
+        if (foodName == null) return DEFAULT_UNIT;
+
+        int state = 0;
+        int best = NO_MATCH;
+        for (int i = 0; i < foodName.length(); i++) {
+            int letter = Character.toLowerCase(foodName.charAt(i)) - 'a';
+            if (letter < 0 || letter >= ALPHABET) {
+                // No keyword contains anything but letters
+                state = 0;
+                continue;
+            }
+            state = transitions[state * ALPHABET + letter];
+            if (matches[state] < best) {
+                best = matches[state];
+                if (best == 0) break;
+            }
+        }
+        return best == NO_MATCH ? DEFAULT_UNIT : UNITS[best];
+    }
+
+    private static int[] newNode() {
+        int[] node = new int[ALPHABET];
+        Arrays.fill(node, -1);
+        return node;
+    }
+}
\ No newline at end of file
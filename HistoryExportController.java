@@ -0,0 +1,128 @@
+package com.example.School_feeding_managment_system.Controller;
+
+import com.example.School_feeding_managment_system.Service.HistoryExportService;
+import com.example.School_feeding_managment_system.Service.ReportAccessGuard;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming exports of attendance and delivery history for auditors.
+ * The body is written after the handler returns, straight from the database cursor to the response.
+ * Every school's history is exportable here, so each request must come from an admin or auditor
+ * before anything is read, and every export is logged.
+ */
+@RestController
+@RequestMapping("/api/export")
+public class HistoryExportController {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryExportController.class);
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    @Autowired
+    private HistoryExportService exportService;
+
+    @Autowired
+    private ReportAccessGuard reportAccess;
+
+    @GetMapping("/attendance")
+    public ResponseEntity<?> exportAttendance(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long schoolId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+
+        if (!reportAccess.canExport(request)) {
+            return denied(request);
+        }
+
+        HistoryExportService.Format exportFormat;
+        try {
+            exportFormat = parseFormat(format);
+            exportService.validateRange(from, to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        log.info("Attendance export {} to {} (school {}) for {} ({})", from, to, schoolId,
+                request.getUserPrincipal().getName(), request.getRemoteAddr());
+        StreamingResponseBody body = out -> exportService.exportAttendance(from, to, schoolId, exportFormat, gzip, out);
+        return streaming("attendance-" + from + "-" + to, exportFormat, gzip, body);
+    }
+
+    @GetMapping("/deliveries")
+    public ResponseEntity<?> exportDeliveries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long schoolId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletRequest request) {
+
+        if (!reportAccess.canExport(request)) {
+            return denied(request);
+        }
+
+        HistoryExportService.Format exportFormat;
+        try {
+            exportFormat = parseFormat(format);
+            exportService.validateRange(from, to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        log.info("Delivery export {} to {} (school {}) for {} ({})", from, to, schoolId,
+                request.getUserPrincipal().getName(), request.getRemoteAddr());
+        StreamingResponseBody body = out -> exportService.exportDeliveries(from, to, schoolId, exportFormat, gzip, out);
+        return streaming("deliveries-" + from + "-" + to, exportFormat, gzip, body);
+    }
+
+    private ResponseEntity<?> denied(HttpServletRequest request) {
+        if (!reportAccess.isAuthenticated(request)) {
+            log.warn("Refused export {} for {}: not logged in", request.getRequestURI(), request.getRemoteAddr());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not logged in"));
+        }
+        log.warn("Refused export {} for {} ({}): missing role", request.getRequestURI(),
+                request.getUserPrincipal().getName(), request.getRemoteAddr());
+        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "Exports require one of the roles " + ReportAccessGuard.EXPORT_ROLES));
+    }
+
+    private HistoryExportService.Format parseFormat(String format) {
+        try {
+            return HistoryExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported format: " + format + ". Use csv or ndjson");
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> streaming(String baseName, HistoryExportService.Format format,
+                                                            boolean gzip, StreamingResponseBody body) {
+        String fileName = baseName + (format == HistoryExportService.Format.CSV ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? GZIP
+                : format == HistoryExportService.Format.CSV ? new MediaType("text", "csv", StandardCharsets.UTF_8) : NDJSON;
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,231 @@
+package com.example.School_feeding_managment_system.Service;
+
+import com.example.School_feeding_managment_system.Repository.AttendanceExportRow;
+import com.example.School_feeding_managment_system.Repository.DeliveryExportRow;
+import com.example.School_feeding_managment_system.Repository.MealAttendanceRepository;
+import com.example.School_feeding_managment_system.Repository.MealDeliveryDetailRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports attendance and delivery history for auditors as CSV or NDJSON.
+ * Rows are read through a forward-only cursor and written to the output as they arrive,
+ * so memory use does not depend on how many rows are exported.
+ */
+@Service
+public class HistoryExportService {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    // Leading characters that make a spreadsheet read a cell as a formula
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private static final List<Column<AttendanceExportRow>> ATTENDANCE_COLUMNS = List.of(
+            new Column<>("attendance_id", AttendanceExportRow::getAttendanceId),
+            new Column<>("distribution_date", AttendanceExportRow::getDistributionDate),
+            new Column<>("distribution_id", AttendanceExportRow::getDistributionId),
+            new Column<>("meal_type", AttendanceExportRow::getMealType),
+            new Column<>("school_id", AttendanceExportRow::getSchoolId),
+            new Column<>("school_name", AttendanceExportRow::getSchoolName),
+            new Column<>("student_id", AttendanceExportRow::getStudentId),
+            new Column<>("round", AttendanceExportRow::getRound),
+            new Column<>("status", AttendanceExportRow::getStatus),
+            new Column<>("taken_at", AttendanceExportRow::getTakenAt)
+    );
+
+    private static final List<Column<DeliveryExportRow>> DELIVERY_COLUMNS = List.of(
+            new Column<>("detail_id", DeliveryExportRow::getDetailId),
+            new Column<>("meal_plan_id", DeliveryExportRow::getMealPlanId),
+            new Column<>("meal_date", DeliveryExportRow::getMealDate),
+            new Column<>("school_id", DeliveryExportRow::getSchoolId),
+            new Column<>("school_name", DeliveryExportRow::getSchoolName),
+            new Column<>("vendor_id", DeliveryExportRow::getVendorId),
+            new Column<>("food_name", DeliveryExportRow::getFoodName),
+            new Column<>("supplied_quantity", DeliveryExportRow::getSuppliedQuantity)
+    );
+
+    @Autowired
+    private MealAttendanceRepository attendanceRepo;
+
+    @Autowired
+    private MealDeliveryDetailRepository deliveryDetailRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DashboardMetrics metrics;
+
+    /**
+     * Rejects filters before the response starts; once rows are streaming the status can't change anymore
+     */
+    public void validateRange(LocalDate fromDate, LocalDate toDate) {
+        if (fromDate == null || toDate == null) {
+            throw new IllegalArgumentException("Both from and to dates are required");
+        }
+        if (toDate.isBefore(fromDate)) {
+            throw new IllegalArgumentException("The to date must not be before the from date");
+        }
+    }
+
+    /**
+     * Writes every attendance in the date range, optionally of one school, and returns the row count.
+     * The transaction keeps the cursor open while the rows are written.
+     */
+    @Transactional(readOnly = true)
+    public long exportAttendance(LocalDate fromDate, LocalDate toDate, Long schoolId,
+                                 Format format, boolean gzip, OutputStream out) throws IOException {
+        validateRange(fromDate, toDate);
+        try (Stream<AttendanceExportRow> rows = attendanceRepo.streamExportRows(fromDate, toDate, schoolId)) {
+            return metrics.stage("attendance_export",
+                    () -> write(rows.iterator(), ATTENDANCE_COLUMNS, format, gzip, out));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes every delivered food of the meal plans in the date range, optionally of one school,
+     * and returns the row count
+     */
+    @Transactional(readOnly = true)
+    public long exportDeliveries(LocalDate fromDate, LocalDate toDate, Long schoolId,
+                                 Format format, boolean gzip, OutputStream out) throws IOException {
+        validateRange(fromDate, toDate);
+        try (Stream<DeliveryExportRow> rows = deliveryDetailRepository.streamExportRows(fromDate, toDate, schoolId)) {
+            return metrics.stage("delivery_export",
+                    () -> write(rows.iterator(), DELIVERY_COLUMNS, format, gzip, out));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <R> long write(Iterator<R> rows, List<Column<R>> columns, Format format, boolean gzip, OutputStream out) {
+        try {
+            // Closing the gzip stream writes its trailer; the response stream itself is left to the container
+            OutputStream target = gzip ? new GZIPOutputStream(new NonClosingOutputStream(out), 8192) : out;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+
+            long count = format == Format.CSV
+                    ? writeCsv(rows, columns, writer)
+                    : writeNdjson(rows, columns, writer);
+
+            writer.flush();
+            if (gzip) {
+                target.close();
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <R> long writeCsv(Iterator<R> rows, List<Column<R>> columns, Writer writer) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) writer.write(',');
+            writer.write(columns.get(i).name());
+        }
+        writer.write("\r\n");
+
+        long count = 0;
+        while (rows.hasNext()) {
+            R row = rows.next();
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) writer.write(',');
+                writeCsvValue(writer, columns.get(i).value().apply(row));
+            }
+            writer.write("\r\n");
+            count++;
+        }
+        return count;
+    }
+
+    private void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = text(value);
+        if (!(value instanceof Number) && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            // Spreadsheets run cells starting with these as formulas; the quote makes them plain text
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private <R> long writeNdjson(Iterator<R> rows, List<Column<R>> columns, Writer writer) throws IOException {
+        long count = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(writer)) {
+            // The writer belongs to the caller, which flushes it
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            // Rows are separated by the newline below, not by Jackson's default space
+            json.setRootValueSeparator(null);
+
+            while (rows.hasNext()) {
+                R row = rows.next();
+                json.writeStartObject();
+                for (Column<R> column : columns) {
+                    Object value = column.value().apply(row);
+                    if (value == null) {
+                        json.writeNullField(column.name());
+                    } else if (value instanceof Number number) {
+                        json.writeNumberField(column.name(), number.longValue());
+                    } else {
+                        json.writeStringField(column.name(), text(value));
+                    }
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private String text(Object value) {
+        return value instanceof Enum<?> e ? e.name() : value.toString();
+    }
+
+    private record Column<R>(String name, Function<R, Object> value) {
+    }
+
+    /**
+     * Lets the gzip stream be closed to finish it without closing the response underneath
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
\ No newline at end of file
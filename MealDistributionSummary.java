@@ -0,0 +1,29 @@
+package com.example.School_feeding_managment_system.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Flat read-only view of a MealDistribution, without its items.
+ * Enum columns are exposed as Enum so callers only need their names.
+ */
+public interface MealDistributionSummary {
+
+    Long getId();
+
+    LocalDate getDistributionDate();
+
+    Enum<?> getMealType();
+
+    Enum<?> getStatus();
+
+    LocalTime getStartDistributionTime();
+
+    LocalTime getEndDistributionTime();
+
+    Integer getNumberOfStudents();
+
+    Integer getRoundsAllowed();
+
+    Long getSourceMealPlanId();
+}
\ No newline at end of file
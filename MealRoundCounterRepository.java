@@ -0,0 +1,98 @@
+package com.example.School_feeding_managment_system.Repository;
+
+import com.example.School_feeding_managment_system.Model.MealAttendance;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Registration counters per distribution and round, and the rounds each student took as a bitmap
+ * (bit 0 is round 1, up to round 63), added to in batches after registrations commit.
+ * Expects these tables next to meal_attendance:
+ * <pre>
+ * CREATE TABLE meal_round_counter (
+ *     meal_distribution_id BIGINT NOT NULL,
+ *     round                INT    NOT NULL,
+ *     registrations        BIGINT NOT NULL,
+ *     PRIMARY KEY (meal_distribution_id, round)
+ * );
+ * CREATE TABLE meal_student_rounds (
+ *     meal_distribution_id BIGINT      NOT NULL,
+ *     student_id           VARCHAR(64) NOT NULL,
+ *     rounds_taken         BIGINT      NOT NULL,
+ *     PRIMARY KEY (student_id, meal_distribution_id),
+ *     INDEX idx_meal_student_rounds_distribution (meal_distribution_id)
+ * );
+ * </pre>
+ */
+public interface MealRoundCounterRepository extends Repository<MealAttendance, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO meal_round_counter (meal_distribution_id, round, registrations) "
+            + "VALUES (:distributionId, :round, :registrations) "
+            + "ON DUPLICATE KEY UPDATE registrations = registrations + :registrations", nativeQuery = true)
+    int add(@Param("distributionId") Long distributionId, @Param("round") int round,
+            @Param("registrations") long registrations);
+
+    @Modifying
+    @Query(value = "INSERT INTO meal_student_rounds (meal_distribution_id, student_id, rounds_taken) "
+            + "VALUES (:distributionId, :studentId, :rounds) "
+            + "ON DUPLICATE KEY UPDATE rounds_taken = rounds_taken | :rounds", nativeQuery = true)
+    int addStudentRounds(@Param("studentId") String studentId, @Param("distributionId") Long distributionId,
+                         @Param("rounds") long rounds);
+
+    @Query(value = "SELECT rounds_taken FROM meal_student_rounds "
+            + "WHERE student_id = :studentId AND meal_distribution_id = :distributionId", nativeQuery = true)
+    Optional<Long> findStudentRounds(@Param("studentId") String studentId,
+                                     @Param("distributionId") Long distributionId);
+
+    @Query(value = "SELECT meal_distribution_id AS distributionId, round AS round, registrations AS registrations "
+            + "FROM meal_round_counter WHERE meal_distribution_id = :distributionId", nativeQuery = true)
+    List<RoundCountRow> findByDistributionId(@Param("distributionId") Long distributionId);
+
+    @Query(value = "SELECT c.meal_distribution_id AS distributionId, c.round AS round, c.registrations AS registrations "
+            + "FROM meal_round_counter c JOIN meal_distribution d ON d.id = c.meal_distribution_id "
+            + "WHERE d.distribution_date = :date", nativeQuery = true)
+    List<RoundCountRow> findByDistributionDate(@Param("date") LocalDate date);
+
+    /**
+     * The same counts, computed from the attendance rows, for reconciliation
+     */
+    @Query(value = "SELECT meal_distribution_id AS distributionId, round AS round, COUNT(*) AS registrations "
+            + "FROM meal_attendance WHERE meal_distribution_id = :distributionId "
+            + "GROUP BY meal_distribution_id, round", nativeQuery = true)
+    List<RoundCountRow> countAttendanceByDistributionId(@Param("distributionId") Long distributionId);
+
+    /**
+     * Rounds set across the student bitmaps of a distribution, for reconciliation
+     */
+    @Query(value = "SELECT CAST(COALESCE(SUM(BIT_COUNT(rounds_taken)), 0) AS SIGNED) FROM meal_student_rounds "
+            + "WHERE meal_distribution_id = :distributionId", nativeQuery = true)
+    long countStudentRoundBits(@Param("distributionId") Long distributionId);
+
+    @Modifying
+    @Query(value = "DELETE FROM meal_round_counter WHERE meal_distribution_id = :distributionId", nativeQuery = true)
+    int deleteByDistributionId(@Param("distributionId") Long distributionId);
+
+    @Modifying
+    @Query(value = "INSERT INTO meal_round_counter (meal_distribution_id, round, registrations) "
+            + "SELECT meal_distribution_id, round, COUNT(*) FROM meal_attendance "
+            + "WHERE meal_distribution_id = :distributionId GROUP BY meal_distribution_id, round", nativeQuery = true)
+    int insertFromAttendance(@Param("distributionId") Long distributionId);
+
+    @Modifying
+    @Query(value = "DELETE FROM meal_student_rounds WHERE meal_distribution_id = :distributionId", nativeQuery = true)
+    int deleteStudentRoundsByDistributionId(@Param("distributionId") Long distributionId);
+
+    @Modifying
+    @Query(value = "INSERT INTO meal_student_rounds (meal_distribution_id, student_id, rounds_taken) "
+            + "SELECT meal_distribution_id, student_id, BIT_OR(1 << (round - 1)) FROM meal_attendance "
+            + "WHERE meal_distribution_id = :distributionId AND round BETWEEN 1 AND 63 "
+            + "GROUP BY meal_distribution_id, student_id", nativeQuery = true)
+    int insertStudentRoundsFromAttendance(@Param("distributionId") Long distributionId);
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.example.School_feeding_managment_system.Service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Decides who may read the cross-school reports, from the roles Spring Security gives the logged-in user.
+ * History exports hold every student's records, so only admins and auditors get them.
+ * Attendance counts carry no personal data and are also shown to parents.
+ */
+@Component
+public class ReportAccessGuard {
+
+    public static final List<String> EXPORT_ROLES = List.of("ADMIN", "AUDITOR");
+    public static final List<String> REPORT_ROLES = List.of("ADMIN", "AUDITOR", "PARENT");
+
+    public boolean isAuthenticated(HttpServletRequest request) {
+        return request.getUserPrincipal() != null;
+    }
+
+    public boolean canExport(HttpServletRequest request) {
+        return hasAnyRole(request, EXPORT_ROLES);
+    }
+
+    public boolean canReadReports(HttpServletRequest request) {
+        return hasAnyRole(request, REPORT_ROLES);
+    }
+
+    private boolean hasAnyRole(HttpServletRequest request, List<String> roles) {
+        // Spring Security's request wrapper adds the ROLE_ prefix
+        return isAuthenticated(request) && roles.stream().anyMatch(request::isUserInRole);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.School_feeding_managment_system.Repository;
+
+/**
+ * Registrations of one round of a distribution, from the round counters or counted from attendance
+ */
+public interface RoundCountRow {
+
+    Long getDistributionId();
+
+    Integer getRound();
+
+    Long getRegistrations();
+}
\ No newline at end of file
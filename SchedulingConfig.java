@@ -0,0 +1,24 @@
+package com.example.School_feeding_managment_system.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    /**
+     * Replaces Spring Boot's single-thread scheduler, so a slow job such as the nightly
+     * reconciliation doesn't hold back the serving window events or the counter flushes
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${sfms.scheduling.pool-size:4}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("sfms-scheduling-");
+        return scheduler;
+    }
+}
\ No newline at end of file
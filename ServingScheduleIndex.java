@@ -0,0 +1,104 @@
+package com.example.School_feeding_managment_system.Service;
+
+import com.example.School_feeding_managment_system.Repository.MealDistributionRepository;
+import com.example.School_feeding_managment_system.Repository.MealDistributionSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Opening times of the serving windows of the distributions from today to a week ahead,
+ * so "what opens next after t" is a single next-key lookup for the jobs planned around openings.
+ * Whether a meal is served right now is not answered here: that is decided from the meal's own
+ * start and end time, so it never depends on how recently the index was rebuilt.
+ * Rebuilt at midnight, on a fixed rate for changes made past Hibernate or on other nodes, and
+ * shortly after a distribution change is committed, never per request nor on the committing thread.
+ */
+@Component
+public class ServingScheduleIndex {
+
+    private static final int DAYS_AHEAD = 7;
+
+    @Autowired
+    private MealDistributionRepository distributionRepo;
+
+    @Autowired
+    private Clock clock;
+
+    private volatile NavigableMap<LocalDateTime, List<Long>> opening;
+    private volatile long builtAt;
+    private volatile boolean dirty;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 0 * * *")
+    public synchronized void rebuild() {
+        // Cleared before reading, so a change committed during the rebuild marks it dirty again
+        dirty = false;
+
+        LocalDate today = LocalDate.now(clock);
+        List<MealDistributionSummary> distributions =
+                distributionRepo.findSummariesByDateRange(today, today.plusDays(DAYS_AHEAD));
+
+        NavigableMap<LocalDateTime, List<Long>> openingTimes = new TreeMap<>();
+        for (MealDistributionSummary dist : distributions) {
+            if (dist.getStartDistributionTime() == null || dist.getEndDistributionTime() == null
+                    || dist.getEndDistributionTime().isBefore(dist.getStartDistributionTime())) {
+                continue;
+            }
+            LocalDateTime opensAt = dist.getDistributionDate().atTime(dist.getStartDistributionTime());
+            openingTimes.computeIfAbsent(opensAt, k -> new ArrayList<>()).add(dist.getId());
+        }
+
+        NavigableMap<LocalDateTime, List<Long>> openingCopy = new TreeMap<>();
+        openingTimes.forEach((opensAt, ids) -> openingCopy.put(opensAt, List.copyOf(ids)));
+
+        opening = Collections.unmodifiableNavigableMap(openingCopy);
+        builtAt = clock.millis();
+    }
+
+    /**
+     * Asks for a rebuild after a distribution change was committed.
+     * Only sets a flag, so it is safe to call from commit callbacks.
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    @Scheduled(fixedDelay = 5_000)
+    public void rebuildIfDue() {
+        if (dirty || clock.millis() - builtAt >= DashboardMealWindowCache.TIME_TO_LIVE_MILLIS) {
+            rebuild();
+        }
+    }
+
+    /**
+     * The next time a serving window opens after the given time, or null if none is indexed
+     */
+    public LocalDateTime nextOpeningAfter(LocalDateTime time) {
+        return opening().higherKey(time);
+    }
+
+    /**
+     * Distributions whose window opens at the given time
+     */
+    public List<Long> openingAt(LocalDateTime time) {
+        return opening().getOrDefault(time, List.of());
+    }
+
+    private NavigableMap<LocalDateTime, List<Long>> opening() {
+        NavigableMap<LocalDateTime, List<Long>> current = opening;
+        if (current == null) {
+            // Asked for before the application ready event
+            rebuild();
+            current = opening;
+        }
+        return current;
+    }
+}
\ No newline at end of file
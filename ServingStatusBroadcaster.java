@@ -0,0 +1,204 @@
+package com.example.School_feeding_managment_system.Service;
+
+import com.example.School_feeding_managment_system.Model.DeliveryApproval;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes small live updates to students with the dashboard open, so they don't have to poll it:
+ * a meal's serving window opened or closed, one of their rounds got registered, or an approval changed.
+ * Open and close events are scheduled on every node from the serving times of today's meals.
+ * Registrations and approvals happen on whichever node handled them, so those events go through
+ * the {@link DashboardEventRelay} and reach the student's stream on any node.
+ * Idle subscribers hold no thread; each send runs on its own virtual thread so a slow client
+ * never delays the others.
+ */
+@Component
+public class ServingStatusBroadcaster {
+
+    private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    @Autowired
+    private StudentDashboardService dashboardService;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private DashboardEventRelay eventRelay;
+
+    @Autowired
+    private Clock clock;
+
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<ScheduledFuture<?>> scheduledWindows = new ArrayList<>();
+    private final AtomicBoolean reschedulePending = new AtomicBoolean();
+
+    public SseEmitter subscribe(String studentId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        subscribers.computeIfAbsent(studentId, k -> ConcurrentHashMap.newKeySet()).add(emitter);
+
+        Runnable remove = () -> unsubscribe(studentId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @EventListener
+    public void onMealRegistered(StudentDashboardService.MealRegisteredEvent event) {
+        eventRelay.publish(event.studentId(), "round-registered", Map.of(
+                "distributionId", event.distributionId(),
+                "round", event.round()
+        ));
+    }
+
+    /**
+     * Delivers an event published on any node to the subscribers held by this one
+     */
+    @EventListener
+    public void onRelayed(DashboardEventRelay.RelayedEvent event) {
+        if (event.studentId() == null) {
+            sendToAll(event.name(), event.data());
+        } else {
+            sendTo(event.studentId(), event.name(), event.data());
+        }
+    }
+
+    public void approvalChanged(DeliveryApproval approval) {
+        if (approval.getMealPlan() != null) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("mealPlanId", approval.getMealPlan().getId());
+            data.put("status", approval.getStatus() != null ? approval.getStatus().name() : null);
+            eventRelay.publish(null, "approval-changed", data);
+        }
+
+        // The approval may add or remove one of today's meals
+        requestReschedule();
+    }
+
+    /**
+     * Schedules today's windows again on the task scheduler instead of the calling thread,
+     * which is usually a writer's commit. Changes committed before the reschedule starts share it.
+     */
+    public void requestReschedule() {
+        if (reschedulePending.compareAndSet(false, true)) {
+            taskScheduler.execute(() -> {
+                // Cleared before reading, so a change committed during the run asks for another one
+                reschedulePending.set(false);
+                scheduleTodaysWindows();
+            });
+        }
+    }
+
+    /**
+     * Schedules an open and a close event for every meal shown today.
+     * Runs at startup, right after midnight, and whenever today's meals change.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 1 0 * * *")
+    public synchronized void scheduleTodaysWindows() {
+        scheduledWindows.forEach(future -> future.cancel(false));
+        scheduledWindows.clear();
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDate today = now.toLocalDate();
+
+        for (DashboardMealWindowCache.MealSlot meal : dashboardService.getMealsShownOn(today)) {
+            if (meal.startDistributionTime() == null || meal.endDistributionTime() == null) {
+                continue;
+            }
+
+            LocalDateTime opensAt = today.atTime(meal.startDistributionTime());
+            // A meal is still served during its end time, so it closes just after it
+            LocalDateTime closesAt = today.atTime(meal.endDistributionTime()).plusSeconds(1);
+
+            if (opensAt.isAfter(now)) {
+                schedule(opensAt, () -> sendToAll("serving-opened", windowEvent(meal)));
+            }
+            if (closesAt.isAfter(now)) {
+                schedule(closesAt, () -> sendToAll("serving-closed", windowEvent(meal)));
+            }
+        }
+    }
+
+    /**
+     * Keeps connections behind proxies alive and drops subscribers that went away
+     */
+    @Scheduled(fixedRate = 60_000)
+    public void heartbeat() {
+        subscribers.forEach((studentId, emitters) -> emitters.forEach(emitter ->
+                sendExecutor.execute(() -> {
+                    try {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    } catch (IOException | IllegalStateException e) {
+                        unsubscribe(studentId, emitter);
+                    }
+                })));
+    }
+
+    /**
+     * The scheduler fires on system time, so the wait is measured on the clock and applied to now
+     */
+    private void schedule(LocalDateTime at, Runnable task) {
+        Duration delay = Duration.between(LocalDateTime.now(clock), at);
+        scheduledWindows.add(taskScheduler.schedule(task, Instant.now().plus(delay)));
+    }
+
+    private Map<String, Object> windowEvent(DashboardMealWindowCache.MealSlot meal) {
+        return Map.of(
+                "distributionId", meal.distributionId(),
+                "mealType", meal.mealType(),
+                "startDistributionTime", meal.startDistributionTime().toString(),
+                "endDistributionTime", meal.endDistributionTime().toString()
+        );
+    }
+
+    private void sendToAll(String name, Object data) {
+        subscribers.keySet().forEach(studentId -> sendTo(studentId, name, data));
+    }
+
+    private void sendTo(String studentId, String name, Object data) {
+        Set<SseEmitter> emitters = subscribers.get(studentId);
+        if (emitters == null) {
+            return;
+        }
+
+        for (SseEmitter emitter : emitters) {
+            sendExecutor.execute(() -> {
+                try {
+                    emitter.send(SseEmitter.event().name(name).data(data));
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(studentId, emitter);
+                }
+            });
+        }
+    }
+
+    private void unsubscribe(String studentId, SseEmitter emitter) {
+        subscribers.computeIfPresent(studentId, (k, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
\ No newline at end of file
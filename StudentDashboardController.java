@@ -2,52 +2,128 @@ package com.example.School_feeding_managment_system.Controller;
 
 import com.example.School_feeding_managment_system.DTO.MealDistributionDTO;
 import com.example.School_feeding_managment_system.DTO.StudentDashboardDTO;
+import com.example.School_feeding_managment_system.DTO.StudentLoginDTO;
 import com.example.School_feeding_managment_system.Model.Student;
+import com.example.School_feeding_managment_system.Service.ServingStatusBroadcaster;
 import com.example.School_feeding_managment_system.Service.StudentDashboardService;
+import com.example.School_feeding_managment_system.Service.StudentPhotoService;
+import com.example.School_feeding_managment_system.Service.StudentTokenService;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/studentdashboard")
 public class StudentDashboardController {
 
+    private static final Logger log = LoggerFactory.getLogger(StudentDashboardController.class);
+
     @Autowired
     private StudentDashboardService dashboardService;
 
+    @Autowired
+    private StudentPhotoService photoService;
+
+    @Autowired
+    private ServingStatusBroadcaster servingStatusBroadcaster;
+
+    @Autowired
+    private StudentTokenService tokenService;
+
+    @Autowired
+    private Clock clock;
+
+    private static final String TOKEN_COOKIE = "SFMS_STUDENT_TOKEN";
+
+    /**
+     * Logs the student in and returns a signed token with the dashboard.
+     * Credentials come in the JSON body, never as query parameters.
+     * The token is also set as an HttpOnly cookie, so browsers don't have to handle it.
+     * Handled asynchronously: the web thread is released while the password is checked.
+     */
+    @PostMapping("/login")
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody StudentLoginDTO credentials) {
+        String studentId = credentials.getStudentId();
+        if (studentId == null || credentials.getEmail() == null || credentials.getPassword() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("error", "studentId, email and password are required")));
+        }
+
+        return dashboardService.loginAndGetDashboard(
+                        credentials.getEmail(), credentials.getPassword(), studentId, LocalDate.now(clock))
+                .<ResponseEntity<?>>thenApply(dashboard -> {
+                    String token = tokenService.issue(studentId);
+                    return ResponseEntity.ok()
+                            .header(HttpHeaders.SET_COOKIE, tokenCookie(token, tokenService.getTimeToLive()).toString())
+                            .body(Map.of(
+                                    "token", token,
+                                    "dashboard", dashboard
+                            ));
+                })
+                .exceptionally(this::loginFailed);
+    }
+
+    private ResponseEntity<?> loginFailed(Throwable failure) {
+        Throwable e = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (e instanceof IllegalArgumentException) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", e.getMessage()));
+        }
+        if (e instanceof IllegalStateException) {
+            // Password checks are saturated; tell the client to back off instead of queueing forever
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "2")
+                    .body(Map.of("error", e.getMessage()));
+        }
+        throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+    }
 
     @GetMapping("/dashboard")
     public ResponseEntity<?> getDashboard(
             @RequestParam(required = false) LocalDate date,
-            HttpSession session) {
-
-        System.out.println("=== DASHBOARD REQUEST ===");
-        System.out.println("Session ID: " + session.getId());
-        System.out.println("Is new session: " + session.isNew());
+            HttpServletRequest request) {
 
-        String studentId = extractStudentIdFromSession(session);
-        System.out.println("Extracted studentId: " + studentId);
+        String studentId = extractStudentId(request);
+        log.debug("Dashboard request for student {}", studentId);
 
         if (studentId == null) {
-            System.out.println("ERROR: No student ID in session");
-            // Debug: print all session attributes
-            Enumeration<String> attributeNames = session.getAttributeNames();
-            while (attributeNames.hasMoreElements()) {
-                String attrName = attributeNames.nextElement();
-                System.out.println("Session attr: " + attrName + " = " + session.getAttribute(attrName));
-            }
+            log.debug("Dashboard request without student token or session");
 
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Student not logged in. Please login first."));
         }
 
-        LocalDate targetDate = (date != null) ? date : LocalDate.now();
-        StudentDashboardDTO dashboard = dashboardService.getDashboard(studentId, targetDate);
+        LocalDate targetDate = (date != null) ? date : LocalDate.now(clock);
+        StudentDashboardDTO dashboard;
+        try {
+            dashboard = dashboardService.getDashboard(studentId, targetDate);
+        } catch (IllegalStateException e) {
+            // A required part of the dashboard timed out
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "2")
+                    .body(Map.of("error", e.getMessage()));
+        }
 
         return ResponseEntity.ok(dashboard);
     }
@@ -56,9 +132,9 @@ public class StudentDashboardController {
     public ResponseEntity<?> registerMeal(
             @RequestParam Long distributionId,
             @RequestParam Integer round,
-            HttpSession session) {
+            HttpServletRequest request) {
 
-        String studentId = extractStudentIdFromSession(session);
+        String studentId = extractStudentId(request);
         if (studentId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Student not logged in"));
@@ -78,58 +154,180 @@ public class StudentDashboardController {
         return ResponseEntity.ok(dto);
     }
 
+    /**
+     * Live serving status for the logged-in student, as Server-Sent Events
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamServingStatus(HttpServletRequest request) {
+        String studentId = extractStudentId(request);
+        if (studentId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return ResponseEntity.ok(servingStatusBroadcaster.subscribe(studentId));
+    }
+
+    @GetMapping("/photo")
+    public ResponseEntity<?> getPhoto(
+            @RequestParam(defaultValue = "0") int size,
+            @RequestParam(required = false) String v,
+            HttpServletRequest request,
+            WebRequest webRequest) {
+
+        String studentId = extractStudentId(request);
+        if (studentId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Student not logged in"));
+        }
+
+        if (!StudentPhotoService.ALLOWED_SIZES.contains(size)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Allowed photo sizes: " + new TreeSet<>(StudentPhotoService.ALLOWED_SIZES)));
+        }
+
+        StudentPhotoService.PhotoInfo info = photoService.getPhotoInfo(studentId);
+        if (info == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = StudentPhotoService.etag(info.version(), size);
+
+        // Only a URL carrying the current version may be kept for long; anything else is
+        // revalidated, so an old or missing version can't pin a replaced photo in the browser
+        CacheControl cacheControl = info.version().equals(v)
+                ? CacheControl.maxAge(Duration.ofDays(30)).cachePrivate()
+                : CacheControl.noCache().cachePrivate();
+
+        if (webRequest.checkNotModified(etag, info.updatedAt().toEpochMilli())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .lastModified(info.updatedAt())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        if (size == 0) {
+            // The original is streamed from the database instead of being buffered here
+            StreamingResponseBody body = out -> photoService.writeOriginal(studentId, out);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .lastModified(info.updatedAt())
+                    .cacheControl(cacheControl)
+                    .contentType(MediaType.parseMediaType(info.contentType()))
+                    .body(body);
+        }
+
+        StudentPhotoService.Photo photo = photoService.getResizedPhoto(studentId, size, info);
+        if (photo == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(info.updatedAt())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.parseMediaType(photo.contentType()))
+                .contentLength(photo.bytes().length)
+                .body(photo.bytes());
+    }
+
     @GetMapping("/check-session")
-    public ResponseEntity<?> checkSession(HttpSession session) {
-        String studentId = extractStudentIdFromSession(session);
+    public ResponseEntity<?> checkSession(HttpServletRequest request) {
+        String studentId = extractStudentId(request);
 
         if (studentId == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of(
-                            "error", "No session found",
-                            "sessionId", session.getId(),
-                            "isNew", session.isNew()
-                    ));
+                    .body(Map.of("error", "No session found"));
         }
 
         return ResponseEntity.ok(Map.of(
                 "message", "Session active",
-                "studentId", studentId,
-                "sessionId", session.getId()
+                "studentId", studentId
         ));
     }
 
     @GetMapping("/debug-session")
-    public ResponseEntity<?> debugSession(HttpSession session) {
+    public ResponseEntity<?> debugSession(HttpServletRequest request) {
         Map<String, Object> debugInfo = new HashMap<>();
-        debugInfo.put("sessionId", session.getId());
-        debugInfo.put("isNew", session.isNew());
-        debugInfo.put("creationTime", new Date(session.getCreationTime()));
-        debugInfo.put("lastAccessedTime", new Date(session.getLastAccessedTime()));
+        debugInfo.put("studentId", extractStudentId(request));
+        debugInfo.put("hasToken", extractToken(request) != null);
 
-        List<String> attributes = new ArrayList<>();
-        Enumeration<String> attributeNames = session.getAttributeNames();
-        while (attributeNames.hasMoreElements()) {
-            String attrName = attributeNames.nextElement();
-            Object attrValue = session.getAttribute(attrName);
-            attributes.add(attrName + ": " + (attrValue != null ? attrValue.toString() : "null"));
+        // Never create a session just to inspect it
+        HttpSession session = request.getSession(false);
+        debugInfo.put("hasSession", session != null);
+        if (session != null) {
+            debugInfo.put("sessionId", session.getId());
+            debugInfo.put("creationTime", new Date(session.getCreationTime()));
+            debugInfo.put("lastAccessedTime", new Date(session.getLastAccessedTime()));
+
+            List<String> attributes = new ArrayList<>();
+            Enumeration<String> attributeNames = session.getAttributeNames();
+            while (attributeNames.hasMoreElements()) {
+                String attrName = attributeNames.nextElement();
+                Object attrValue = session.getAttribute(attrName);
+                attributes.add(attrName + ": " + (attrValue != null ? attrValue.toString() : "null"));
+            }
+            debugInfo.put("attributes", attributes);
         }
-        debugInfo.put("attributes", attributes);
 
         return ResponseEntity.ok(debugInfo);
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(HttpSession session) {
-        session.invalidate();
+    public ResponseEntity<?> logout(HttpServletRequest request, HttpServletResponse response) {
+        response.addHeader(HttpHeaders.SET_COOKIE, tokenCookie("", Duration.ZERO).toString());
+
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
         return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
     }
 
-    // Helper to make code cleaner and more robust
-    private String extractStudentIdFromSession(HttpSession session) {
+    /**
+     * Resolves the logged-in student from the signed token, without the servlet session or the database.
+     * Clients still logged in through the old session based flow are accepted as long as
+     * their session exists; no session is ever created here.
+     */
+    private String extractStudentId(HttpServletRequest request) {
+        String token = extractToken(request);
+        if (token != null) {
+            return tokenService.resolveStudentId(token);
+        }
+
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
         Student student = (Student) session.getAttribute("student");
         if (student != null) {
             return student.getStudentId();
         }
         return (String) session.getAttribute("studentId");
     }
+
+    private String extractToken(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            return authorization.substring("Bearer ".length()).trim();
+        }
+
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (TOKEN_COOKIE.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private ResponseCookie tokenCookie(String value, Duration maxAge) {
+        return ResponseCookie.from(TOKEN_COOKIE, value)
+                .httpOnly(true)
+                .secure(true)
+                .sameSite("Lax")
+                .path("/api")
+                .maxAge(maxAge)
+                .build();
+    }
 }
\ No newline at end of file
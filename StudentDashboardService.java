@@ -3,14 +3,29 @@ package com.example.School_feeding_managment_system.Service;
 import com.example.School_feeding_managment_system.DTO.*;
 import com.example.School_feeding_managment_system.Model.*;
 import com.example.School_feeding_managment_system.Repository.*;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Clock;
 import java.time.LocalDate;
-import java.time.LocalTime;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,14 +41,90 @@ public class StudentDashboardService {
     private MealAttendanceRepository attendanceRepo;
 
     @Autowired
-    private DeliveryApprovalRepository approvalRepo;
+    private ApprovalStateIndex approvalIndex;
 
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private AttendanceAggregates attendanceAggregates;
 
-    @Transactional(readOnly = true)
-    public StudentDashboardDTO loginAndGetDashboard(String email, String password, String studentId, LocalDate date) {
-        Student student = studentRepo.findByStudentId(studentId);
+    @Autowired
+    private CredentialVerifier credentialVerifier;
+
+    @Autowired
+    private DashboardMetrics metrics;
+
+    @Autowired
+    private DashboardMealWindowCache mealWindowCache;
+
+    @Autowired
+    private StudentPhotoService photoService;
+
+    @Autowired
+    private FoodUnitClassifier unitClassifier;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Clock clock;
+
+    // Slowest a stage the dashboard can't do without may be before the request fails
+    @Value("${sfms.dashboard.stage-timeout-ms:3000}")
+    private long stageTimeoutMillis;
+
+    // Slowest an optional stage may be before the dashboard is returned without it
+    @Value("${sfms.dashboard.optional-stage-timeout-ms:250}")
+    private long optionalStageTimeoutMillis;
+
+    private final ExecutorService dashboardExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private static final int REGISTRATION_LOCK_STRIPES = 256;
+
+    // Unique (student_id, meal_distribution_id, round) on meal_attendance; registration relies on it
+    // to reject a round taken concurrently on another node
+    private static final String ATTENDANCE_UNIQUE_CONSTRAINT = "uk_meal_attendance_student_distribution_round";
+
+    private final Lock[] registrationLocks = new Lock[REGISTRATION_LOCK_STRIPES];
+
+    {
+        for (int i = 0; i < registrationLocks.length; i++) {
+            registrationLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @PreDestroy
+    void shutdownDashboardExecutor() {
+        dashboardExecutor.shutdownNow();
+    }
+
+    /**
+     * Logs the student in and builds the dashboard in two stages, without blocking the caller.
+     * The password check runs on the bounded BCrypt pool outside any transaction, so no database
+     * connection or web thread is held while it waits, and the dashboard stage reuses the student
+     * already loaded. The future fails with IllegalArgumentException for bad credentials and with
+     * IllegalStateException when the login could not be handled in time.
+     */
+    public CompletableFuture<StudentDashboardDTO> loginAndGetDashboard(String email, String password,
+                                                                       String studentId, LocalDate date) {
+        return metrics.timeAsync("student_login", () -> CompletableFuture
+                .supplyAsync(() -> findForLogin(email, studentId), dashboardExecutor)
+                .thenCompose(student -> metrics.stageAsync("password_check",
+                                () -> credentialVerifier.matchesAsync(password, student.getPassword()))
+                        .thenApply(matches -> {
+                            if (!matches) {
+                                throw new IllegalArgumentException("Invalid password");
+                            }
+                            return student;
+                        }))
+                // Continue on a virtual thread, not on the BCrypt pool
+                .thenApplyAsync(student -> buildDashboard(CompletableFuture.completedFuture(student), studentId, date),
+                        dashboardExecutor));
+    }
+
+    private Student findForLogin(String email, String studentId) {
+        Student student = metrics.query("student_lookup", () -> studentRepo.findByStudentId(studentId));
         if (student == null) {
             throw new IllegalArgumentException("Invalid student ID");
         }
@@ -41,234 +132,431 @@ public class StudentDashboardService {
         if (!student.getEmail().equalsIgnoreCase(email)) {
             throw new IllegalArgumentException("Email does not match this student ID");
         }
-
-        if (!passwordEncoder.matches(password, student.getPassword())) {
-            throw new IllegalArgumentException("Invalid password");
-        }
-
-        return getDashboard(studentId, date);
+        return student;
     }
 
-    @Transactional(readOnly = true)
     public StudentDashboardDTO getDashboard(String studentId, LocalDate date) {
-        Student student = studentRepo.findByStudentId(studentId);
-        if (student == null) {
-            throw new IllegalArgumentException("Student not found");
-        }
+        return metrics.time("student_dashboard", () -> {
+            CompletableFuture<Student> student = async("student_lookup", stageTimeoutMillis, () -> {
+                Student found = metrics.query("student_lookup", () -> studentRepo.findByStudentId(studentId));
+                if (found == null) {
+                    throw new IllegalArgumentException("Student not found");
+                }
+                return found;
+            });
+
+            return buildDashboard(student, studentId, date);
+        });
+    }
 
+    /**
+     * Assembles the dashboard from stages running concurrently on virtual threads.
+     * The student, the shared meal window and the photo version are fetched at the same time;
+     * the student's rounds follow as soon as both the student and the window are there.
+     * Each stage runs its own short read, so no transaction or connection spans the whole request.
+     * A required stage that fails or runs past its timeout fails the request; the photo is optional
+     * and the dashboard is returned without it when it is late.
+     */
+    private StudentDashboardDTO buildDashboard(CompletableFuture<Student> studentStage, String studentId, LocalDate date) {
         // Show meals from 3 days before to 7 days after the selected date
         LocalDate fromDate = date.minusDays(3);
-        LocalDate toDate = date.plusDays(7);
-
-        List<MealDistribution> distributions = distributionRepo.findAllByDateRangeWithItems(fromDate, toDate);
-
-        Map<LocalDate, List<MealOptionDTO>> mealsByDate = new LinkedHashMap<>();
-
-        // Sort distributions by date
-        distributions.stream()
-                .sorted(Comparator.comparing(MealDistribution::getDistributionDate))
-                .forEach(dist -> {
-                    LocalDate distDate = dist.getDistributionDate();
-
-                    // Only include if meal is approved (for future/present) OR it's a past meal (show history)
-                    if (shouldIncludeMeal(dist)) {
-                        mealsByDate.computeIfAbsent(distDate, k -> new ArrayList<>());
-
-                        int registeredRounds = attendanceRepo.countDistinctRoundsByStudentAndDistribution(student, dist);
-                        int maxRounds = dist.getRoundsAllowed() != null ? dist.getRoundsAllowed() : 1;
-                        boolean canRegisterMore = registeredRounds < maxRounds;
-
-                        // Determine if meal is serving now based on date and time
-                        boolean isServingNow = isMealCurrentlyServing(dist);
-
-                        // Can take more only if serving now AND can register more
-                        boolean canTakeMore = canRegisterMore && isServingNow;
-
-                        // Convert to FoodItemDTO for frontend compatibility
-                        List<FoodItemDTO> foods = new ArrayList<>();
-                        if (dist.getDistributionItems() != null) {
-                            foods = dist.getDistributionItems().stream()
-                                    .filter(item -> item != null && item.getFood() != null)
-                                    .map(item -> {
-                                        String foodName = item.getFood().getName();
-                                        String quantity = item.getDistributedQuantity() != null
-                                                ? item.getDistributedQuantity().toString()
-                                                : "1";
-                                        String unit = getSafeUnit(foodName);
-
-                                        return new FoodItemDTO(foodName, quantity, unit);
-                                    })
-                                    .collect(Collectors.toList());
-                        }
-
-                        MealOptionDTO option = new MealOptionDTO(
-                                dist.getId(),
-                                dist.getMealType() != null ? dist.getMealType().name() : "MEAL",
-                                dist.getStartDistributionTime(),
-                                dist.getEndDistributionTime(),
-                                maxRounds,
-                                registeredRounds,
-                                canTakeMore,
-                                isServingNow,
-                                foods
-                        );
-
-                        mealsByDate.get(distDate).add(option);
-                    }
+        // Read once, so every meal of the dashboard is judged against the same moment
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        // The meals themselves are shared by all students; only the rounds are per student
+        CompletableFuture<DashboardMealWindowCache.MealWindow> windowStage = async("meal_window", stageTimeoutMillis,
+                () -> metrics.stage("meal_window", () -> mealWindowCache.get(fromDate, this::loadMealWindow)));
+
+        // The photo is served by its own endpoint; the version makes the URL change with the photo
+        CompletableFuture<String> photoStage = async("photo_version", optionalStageTimeoutMillis,
+                () -> metrics.stage("photo_version", () -> photoService.getPhotoVersion(studentId)))
+                .exceptionally(e -> {
+                    metrics.degraded("photo_version");
+                    return null;
                 });
 
-        // Ensure the map is sorted by date
-        Map<LocalDate, List<MealOptionDTO>> sortedMeals = new TreeMap<>(mealsByDate);
+        CompletableFuture<Map<Long, Integer>> roundsStage = studentStage
+                .thenCombine(windowStage, (student, window) -> async("round_count", stageTimeoutMillis,
+                        () -> countRoundsByDistribution(student, window.getDistributionIds())))
+                .thenCompose(rounds -> rounds);
+
+        Student student = await(studentStage);
+        DashboardMealWindowCache.MealWindow window = await(windowStage);
+        Map<Long, Integer> roundsByDistribution = await(roundsStage);
 
-        byte[] photoBytes = student.getPhoto();
+        Map<LocalDate, List<MealOptionDTO>> sortedMeals = metrics.stage("dto_mapping",
+                () -> toMealOptions(window, roundsByDistribution, now));
+
+        String photoVersion = photoStage.join();
+        String photoUrl = photoVersion != null ? "/api/studentdashboard/photo?v=" + photoVersion : null;
 
         return new StudentDashboardDTO(
                 student.getStudentId(),
                 student.getFirstName() + " " + student.getLastName(),
                 student.getEmail(),
                 student.getAge(),
-                photoBytes,
+                photoUrl,
+                photoVersion,
                 sortedMeals
         );
     }
 
+    private <T> CompletableFuture<T> async(String stage, long timeoutMillis, Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, dashboardExecutor)
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((result, e) -> {
+                    if (e instanceof TimeoutException) {
+                        metrics.timeout(stage);
+                    }
+                });
+    }
+
     /**
-     * Determines if a meal should be included in the dashboard
-     * - Past meals: Always include for history
-     * - Future meals: Only include if approved
+     * Waits for a required stage, rethrowing its own exception.
+     * A timeout is reported as IllegalStateException so callers can ask the client to retry.
      */
-    private boolean shouldIncludeMeal(MealDistribution dist) {
-        LocalDate today = LocalDate.now();
-
-        // Past meals - always show for history
-        if (dist.getDistributionDate().isBefore(today)) {
-            return true;
+    private <T> T await(CompletableFuture<T> stage) {
+        try {
+            return stage.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new IllegalStateException("The dashboard is taking too long, please try again shortly");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
+    }
 
-        // Today or future - only show if approved
-        return isMealApproved(dist);
+    /**
+     * Overlays the student's registered rounds and the current serving status on the shared window
+     */
+    private Map<LocalDate, List<MealOptionDTO>> toMealOptions(DashboardMealWindowCache.MealWindow window,
+                                                             Map<Long, Integer> roundsByDistribution,
+                                                             LocalDateTime now) {
+        Map<LocalDate, List<MealOptionDTO>> sortedMeals = new TreeMap<>();
+        window.getMealsByDate().forEach((distDate, slots) -> {
+            List<MealOptionDTO> options = new ArrayList<>(slots.size());
+            for (DashboardMealWindowCache.MealSlot slot : slots) {
+                int registeredRounds = roundsByDistribution.getOrDefault(slot.distributionId(), 0);
+                boolean canRegisterMore = registeredRounds < slot.maxRounds();
+
+                boolean isServingNow = slot.isServingAt(now);
+
+                // Can take more only if serving now AND can register more
+                boolean canTakeMore = canRegisterMore && isServingNow;
+
+                options.add(new MealOptionDTO(
+                        slot.distributionId(),
+                        slot.mealType(),
+                        slot.startDistributionTime(),
+                        slot.endDistributionTime(),
+                        slot.maxRounds(),
+                        registeredRounds,
+                        canTakeMore,
+                        isServingNow,
+                        slot.foods()
+                ));
+            }
+            sortedMeals.put(distDate, options);
+        });
+        return sortedMeals;
     }
 
     /**
-     * Checks if a meal is currently being served
+     * Builds the student independent part of the dashboard window: the meals to show,
+     * grouped by date, with their foods already mapped
      */
-    private boolean isMealCurrentlyServing(MealDistribution dist) {
-        LocalDate today = LocalDate.now();
-        LocalTime now = LocalTime.now();
+    private DashboardMealWindowCache.MealWindow loadMealWindow(LocalDate fromDate) {
+        LocalDate toDate = fromDate.plusDays(10);
+        LocalDate today = LocalDate.now(clock);
+
+        // Flat rows only: no entity is hydrated or dirty-checked to build the window
+        List<MealDistributionSummary> distributions = metrics.query("distribution_fetch",
+                () -> distributionRepo.findSummariesByDateRange(fromDate, toDate));
+
+        // Resolve approvals for the whole window up front,
+        // so the number of queries does not grow with the number of distributions
+        Set<Long> approvedPlanIds = findApprovedMealPlanIds(distributions, today);
+
+        List<MealDistributionSummary> included = distributions.stream()
+                // Only include if meal is approved (for future/present) OR it's a past meal (show history)
+                .filter(dist -> shouldIncludeMeal(dist, approvedPlanIds, today))
+                // Sort distributions by date
+                .sorted(Comparator.comparing(MealDistributionSummary::getDistributionDate))
+                .collect(Collectors.toList());
 
-        // Not today
-        if (!dist.getDistributionDate().equals(today)) {
-            return false;
+        Map<Long, List<FoodItemDTO>> foodsByDistribution = loadFoods(included);
+
+        Map<LocalDate, List<DashboardMealWindowCache.MealSlot>> mealsByDate = new LinkedHashMap<>();
+        for (MealDistributionSummary dist : included) {
+            int maxRounds = dist.getRoundsAllowed() != null ? dist.getRoundsAllowed() : 1;
+
+            mealsByDate.computeIfAbsent(dist.getDistributionDate(), k -> new ArrayList<>())
+                    .add(new DashboardMealWindowCache.MealSlot(
+                            dist.getId(),
+                            dist.getDistributionDate(),
+                            dist.getMealType() != null ? dist.getMealType().name() : "MEAL",
+                            dist.getStartDistributionTime(),
+                            dist.getEndDistributionTime(),
+                            maxRounds,
+                            foodsByDistribution.getOrDefault(dist.getId(), List.of())
+                    ));
         }
 
-        // Check time window
-        LocalTime start = dist.getStartDistributionTime();
-        LocalTime end = dist.getEndDistributionTime();
+        return new DashboardMealWindowCache.MealWindow(fromDate, toDate, today, mealsByDate);
+    }
 
-        if (start == null || end == null) {
-            return false;
+    /**
+     * Loads the items of all given distributions in one query and converts them
+     * to FoodItemDTO for frontend compatibility
+     */
+    private Map<Long, List<FoodItemDTO>> loadFoods(List<MealDistributionSummary> distributions) {
+        if (distributions.isEmpty()) {
+            return Collections.emptyMap();
         }
 
-        return !now.isBefore(start) && !now.isAfter(end);
+        List<Long> distributionIds = distributions.stream()
+                .map(MealDistributionSummary::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, List<FoodItemDTO>> foods = new HashMap<>();
+        List<DistributionItemRow> rows = metrics.query("item_fetch",
+                () -> distributionRepo.findItemRowsByDistributionIdIn(distributionIds));
+        for (DistributionItemRow item : rows) {
+            String quantity = item.getDistributedQuantity() != null
+                    ? item.getDistributedQuantity().toString()
+                    : "1";
+            String unit = unitClassifier.unitOf(item.getFoodName());
+
+            foods.computeIfAbsent(item.getDistributionId(), k -> new ArrayList<>())
+                    .add(new FoodItemDTO(item.getFoodName(), quantity, unit));
+        }
+        return foods;
     }
 
-    private String getSafeUnit(String foodName) {
-        if (foodName == null) return "serving";
-        String name = foodName.toLowerCase();
+    /**
+     * Meals students see on the given date, taken from the shared dashboard window
+     */
+    @Transactional(readOnly = true)
+    public List<DashboardMealWindowCache.MealSlot> getMealsShownOn(LocalDate date) {
+        return mealWindowCache.get(date.minusDays(3), this::loadMealWindow)
+                .getMealsByDate()
+                .getOrDefault(date, List.of());
+    }
 
-        if (name.contains("rice") || name.contains("beans") || name.contains("yam") ||
-                name.contains("cassava") || name.contains("garri") || name.contains("flour") ||
-                name.contains("potato") || name.contains("maize")) {
-            return "kg";
-        }
-        if (name.contains("oil") || name.contains("water") || name.contains("milk") ||
-                name.contains("juice") || name.contains("drink") || name.contains("soda")) {
-            return "liters";
+    /**
+     * Loads the day's shared window and the descriptors of its meals into the caches,
+     * so the first dashboards and registrations of the day don't pay for them
+     */
+    DashboardMealWindowCache.MealWindow preloadDay(LocalDate date) {
+        DashboardMealWindowCache.MealWindow window = mealWindowCache.get(date.minusDays(3), this::loadMealWindow);
+        window.getMealsByDate().getOrDefault(date, List.of())
+                .forEach(slot -> mealWindowCache.getDistribution(slot.distributionId(), this::loadDistributionDescriptor));
+        return window;
+    }
+
+    /**
+     * The id of some student to run the full dashboard for during warm-up, if there is any
+     */
+    Optional<String> findWarmupStudentId() {
+        return Optional.ofNullable(metrics.query("warmup_student",
+                        () -> studentRepo.findFirstByOrderByStudentIdAsc()))
+                .map(Student::getStudentId);
+    }
+
+    /**
+     * Runs the per-student part of the dashboard for a student without rounds, to warm the code path up
+     */
+    Map<LocalDate, List<MealOptionDTO>> overlayWithoutRounds(DashboardMealWindowCache.MealWindow window) {
+        return toMealOptions(window, Map.of(), LocalDateTime.now(clock));
+    }
+
+    /**
+     * Determines if a meal should be included in the dashboard
+     * - Past meals: Always include for history
+     * - Future meals: Only include if approved
+     */
+    private boolean shouldIncludeMeal(MealDistributionSummary dist, Set<Long> approvedPlanIds, LocalDate today) {
+        // Past meals - always show for history
+        if (dist.getDistributionDate().isBefore(today)) {
+            return true;
         }
-        if (name.contains("bread") || name.contains("egg") || name.contains("chicken") ||
-                name.contains("fish") || name.contains("meat") || name.contains("plantain") ||
-                name.contains("banana") || name.contains("apple") || name.contains("orange")) {
-            return "pieces";
+
+        // Today or future - only show if approved
+        if (dist.getSourceMealPlanId() == null) return true; // If no source plan, consider approved
+        return approvedPlanIds.contains(dist.getSourceMealPlanId());
+    }
+
+    /**
+     * Resolves the approvals of every source meal plan that still needs an approval check
+     * (today and future distributions) in one index lookup and returns the ids of the approved plans.
+     */
+    private Set<Long> findApprovedMealPlanIds(List<MealDistributionSummary> distributions, LocalDate today) {
+        Set<Long> planIds = distributions.stream()
+                .filter(dist -> !dist.getDistributionDate().isBefore(today))
+                .map(MealDistributionSummary::getSourceMealPlanId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        if (planIds.isEmpty()) {
+            return Collections.emptySet();
         }
-        return "serving";
+
+        return metrics.stage("approval_check", () -> approvalIndex.getApprovedIds(planIds));
     }
 
-    private boolean isMealApproved(MealDistribution dist) {
-        if (dist.getSourceMealPlan() == null) return true; // If no source plan, consider approved
+    /**
+     * Counts the distinct rounds the student registered for, per distribution, in one grouped query.
+     * Distributions without attendance are absent from the returned map.
+     */
+    private Map<Long, Integer> countRoundsByDistribution(Student student, List<Long> distributionIds) {
+        if (distributionIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
 
-        try {
-            return approvalRepo.findLatestByMealPlanId(dist.getSourceMealPlan().getId())
-                    .stream()
-                    .anyMatch(da -> da.getStatus() == DeliveryApproval.ApprovalStatus.APPROVED);
-        } catch (Exception e) {
-            // If approval check fails, default to true to not hide meals
-            return true;
+        Map<Long, Integer> rounds = new HashMap<>();
+        List<DistributionRoundCount> rows = metrics.query("round_count",
+                () -> attendanceRepo.countDistinctRoundsByStudentGroupedByDistribution(student, distributionIds));
+        for (DistributionRoundCount row : rows) {
+            rounds.put(row.getDistributionId(), row.getRounds().intValue());
         }
+        return rounds;
     }
 
-    @Transactional
+    /**
+     * Registers the student for a round of a meal.
+     * Validation runs against a cached descriptor of the distribution instead of its item graph.
+     * Taps of the same student on the same meal are serialized on this node by a striped lock,
+     * and the unique (student, distribution, round) constraint rejects duplicates coming from other nodes.
+     */
     public void registerForMeal(String studentId, Long distributionId, Integer round) {
-        Student student = studentRepo.findByStudentId(studentId);
+        metrics.time("meal_registration", () -> register(studentId, distributionId, round));
+    }
+
+    private void register(String studentId, Long distributionId, Integer round) {
+        Student student = metrics.query("student_lookup", () -> studentRepo.findByStudentId(studentId));
         if (student == null) {
+            metrics.rejection("student_not_found");
             throw new IllegalArgumentException("Student not found");
         }
 
-        MealDistribution dist = distributionRepo.findByIdWithItems(distributionId)
-                .orElseThrow(() -> new IllegalArgumentException("Meal distribution not found"));
+        DashboardMealWindowCache.DistributionDescriptor dist =
+                mealWindowCache.getDistribution(distributionId, this::loadDistributionDescriptor);
 
-        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDate today = now.toLocalDate();
 
         // Validate date
-        if (dist.getDistributionDate().isBefore(today)) {
+        if (dist.distributionDate().isBefore(today)) {
+            metrics.rejection("past_meal");
             throw new IllegalStateException("Cannot register for past meals");
         }
 
         // For today's meals, check serving time
-        if (dist.getDistributionDate().equals(today)) {
-            if (!isMealCurrentlyServing(dist)) {
+        if (dist.distributionDate().equals(today)) {
+            if (!dist.isServingAt(now)) {
+                metrics.rejection("not_serving");
                 throw new IllegalStateException("Cannot register: meal not currently being served");
             }
         }
 
         // Validate round
-        Integer maxRounds = dist.getRoundsAllowed() != null ? dist.getRoundsAllowed() : 1;
+        int maxRounds = dist.maxRounds();
         if (round < 1 || round > maxRounds) {
+            metrics.rejection("invalid_round");
             throw new IllegalArgumentException("Invalid round. Allowed rounds: 1-" + maxRounds);
         }
 
-        // Check if already registered
-        if (attendanceRepo.existsByStudentAndMealDistributionAndRound(student, dist, round)) {
+        Lock lock = registrationLocks[Math.floorMod(Objects.hash(studentId, distributionId), registrationLocks.length)];
+        lock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // One query answers both "already registered" and "rounds left"
+                List<Integer> takenRounds = metrics.query("registered_rounds",
+                        () -> attendanceRepo.findDistinctRoundsByStudentAndDistributionId(student, distributionId));
+
+                if (takenRounds.contains(round)) {
+                    metrics.rejection("already_registered");
+                    throw new IllegalStateException("Already registered for round " + round);
+                }
+
+                if (takenRounds.size() >= maxRounds) {
+                    metrics.rejection("rounds_exhausted");
+                    throw new IllegalStateException("You have already taken all " + maxRounds + " allowed rounds");
+                }
+
+                MealAttendance attendance = new MealAttendance();
+                attendance.setStudent(student);
+                attendance.setMealDistribution(distributionRepo.getReferenceById(distributionId));
+                attendance.setRound(round);
+                attendance.setStatus(MealAttendance.AttendanceStatus.REGISTERED);
+                attendance.setTakenAt(now.toLocalTime());
+
+                // Flush inside the transaction so a unique constraint violation surfaces here
+                metrics.query("attendance_insert", () -> attendanceRepo.saveAndFlush(attendance));
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (!isAttendanceUniqueViolation(e)) {
+                throw e;
+            }
+            metrics.rejection("already_registered");
             throw new IllegalStateException("Already registered for round " + round);
+        } finally {
+            lock.unlock();
         }
 
-        // Check if reached max rounds
-        int registeredRounds = attendanceRepo.countDistinctRoundsByStudentAndDistribution(student, dist);
-        if (registeredRounds >= maxRounds) {
-            throw new IllegalStateException("You have already taken all " + maxRounds + " allowed rounds");
+        // Committed; the counters pick it up on their next flush
+        attendanceAggregates.recordRegistration(studentId, distributionId, round);
+        eventPublisher.publishEvent(new MealRegisteredEvent(studentId, distributionId, round));
+    }
+
+    /**
+     * Whether the violation is the unique (student, distribution, round) constraint of meal attendances,
+     * the only one that means the round was taken concurrently. Other violations, such as a missing
+     * foreign key, are real errors and are not reported as "already registered".
+     */
+    private boolean isAttendanceUniqueViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName().toLowerCase(Locale.ROOT).contains(ATTENDANCE_UNIQUE_CONSTRAINT);
+            }
         }
+        return false;
+    }
 
-        MealAttendance attendance = new MealAttendance();
-        attendance.setStudent(student);
-        attendance.setMealDistribution(dist);
-        attendance.setRound(round);
-        attendance.setStatus(MealAttendance.AttendanceStatus.REGISTERED);
-        attendance.setTakenAt(LocalTime.now());
+    private DashboardMealWindowCache.DistributionDescriptor loadDistributionDescriptor(Long distributionId) {
+        MealDistributionSummary dist = metrics.query("distribution_lookup", () -> distributionRepo.findSummaryById(distributionId))
+                .orElseThrow(() -> new IllegalArgumentException("Meal distribution not found"));
 
-        attendanceRepo.save(attendance);
+        return new DashboardMealWindowCache.DistributionDescriptor(
+                dist.getId(),
+                dist.getDistributionDate(),
+                dist.getStartDistributionTime(),
+                dist.getEndDistributionTime(),
+                dist.getRoundsAllowed() != null ? dist.getRoundsAllowed() : 1
+        );
     }
 
     @Transactional(readOnly = true)
     public MealDistributionDTO getMealDetails(Long distributionId) {
-        MealDistribution dist = distributionRepo.findByIdWithItems(distributionId)
+        return metrics.time("meal_details", () -> buildMealDetails(distributionId));
+    }
+
+    private MealDistributionDTO buildMealDetails(Long distributionId) {
+        MealDistributionSummary dist = metrics.query("distribution_lookup", () -> distributionRepo.findSummaryById(distributionId))
                 .orElseThrow(() -> new IllegalArgumentException("Meal not found"));
 
-        List<DistributionItemDTO> items = dist.getDistributionItems().stream()
-                .filter(item -> item != null && item.getFood() != null)
+        List<DistributionItemRow> rows = metrics.query("item_fetch",
+                () -> distributionRepo.findItemRowsByDistributionIdIn(List.of(distributionId)));
+
+        List<DistributionItemDTO> items = rows.stream()
                 .map(item -> new DistributionItemDTO(
-                        item.getId(),
-                        item.getFood().getId(),
-                        item.getFood().getName(),
-                        getSafeUnit(item.getFood().getName()),
+                        item.getItemId(),
+                        item.getFoodId(),
+                        item.getFoodName(),
+                        unitClassifier.unitOf(item.getFoodName()),
                         item.getDistributedQuantity(),
                         null
                 ))
@@ -286,4 +574,10 @@ public class StudentDashboardService {
 
         return dto;
     }
+
+    /**
+     * Published once a registration has been committed
+     */
+    public record MealRegisteredEvent(String studentId, Long distributionId, Integer round) {
+    }
 }
\ No newline at end of file
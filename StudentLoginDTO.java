@@ -0,0 +1,42 @@
+package com.example.School_feeding_managment_system.DTO;
+
+/**
+ * Credentials of a student logging in to the dashboard, posted as the request body
+ * so the password never ends up in a URL or an access log
+ */
+public class StudentLoginDTO {
+
+    private String studentId;
+    private String email;
+    private String password;
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(String studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    @Override
+    public String toString() {
+        // Never print the password
+        return "StudentLoginDTO{studentId='" + studentId + "', email='" + email + "'}";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.example.School_feeding_managment_system.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Metadata stored with a student photo at upload, read without the photo itself
+ */
+public interface StudentPhotoInfo {
+
+    String getPhotoVersion();
+
+    String getPhotoContentType();
+
+    LocalDateTime getPhotoUpdatedAt();
+}
\ No newline at end of file
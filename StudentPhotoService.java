@@ -0,0 +1,265 @@
+package com.example.School_feeding_managment_system.Service;
+
+import com.example.School_feeding_managment_system.Repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves student photos separately from the dashboard.
+ * Every photo has a version, stored with it when it is uploaded, so clients can cache it until the
+ * photo actually changes and the dashboard learns the version without reading the photo itself.
+ * Originals are streamed from the database; resized variants are kept in a bounded LRU cache.
+ * Versions are read again after a time to live, so a photo replaced through another node is picked up too.
+ */
+@Service
+public class StudentPhotoService {
+
+    // Sizes (longest edge in pixels) clients may ask for; 0 means the original upload
+    public static final Set<Integer> ALLOWED_SIZES = Set.of(0, 64, 128, 256);
+
+    private static final long MAX_CACHED_BYTES = 32L * 1024 * 1024;
+
+    private static final String ORIGINAL_PHOTO_SQL = "SELECT photo FROM student WHERE student_id = ?";
+
+    @Autowired
+    private StudentRepository studentRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Clock clock;
+
+    private final Map<String, Photo> photos = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    // Versions are tiny, so they are kept for every student seen recently, not only the cached photos
+    private final Map<String, CachedInfo> infos = new ConcurrentHashMap<>();
+
+    /**
+     * Version, content type and upload time of the student's photo, or null if there is none.
+     * Only these columns are read, never the photo itself.
+     */
+    public PhotoInfo getPhotoInfo(String studentId) {
+        long now = System.currentTimeMillis();
+        CachedInfo cached = infos.get(studentId);
+        if (cached != null && cached.isFresh(now)) {
+            return cached.info();
+        }
+
+        PhotoInfo info = studentRepo.findPhotoInfoByStudentId(studentId)
+                .filter(row -> row.getPhotoVersion() != null)
+                .map(row -> new PhotoInfo(
+                        row.getPhotoVersion(),
+                        row.getPhotoContentType() != null ? row.getPhotoContentType() : "image/jpeg",
+                        row.getPhotoUpdatedAt() != null
+                                ? row.getPhotoUpdatedAt().atZone(clock.getZone()).toInstant()
+                                : Instant.EPOCH))
+                .orElse(null);
+
+        CachedInfo previous = infos.put(studentId, new CachedInfo(info, now));
+        if (previous != null && !Objects.equals(versionOf(previous.info()), versionOf(info))) {
+            evictPhotos(studentId);
+        }
+        return info;
+    }
+
+    /**
+     * Version of the student's current photo, or null if there is none
+     */
+    public String getPhotoVersion(String studentId) {
+        return versionOf(getPhotoInfo(studentId));
+    }
+
+    /**
+     * Returns the student's photo resized to the given size, or null if the student has no photo
+     */
+    public Photo getResizedPhoto(String studentId, int size, PhotoInfo info) {
+        if (size == 0 || !ALLOWED_SIZES.contains(size)) {
+            throw new IllegalArgumentException("Unsupported photo size: " + size);
+        }
+
+        String key = studentId + ":" + size;
+        synchronized (photos) {
+            Photo cached = photos.get(key);
+            if (cached != null && cached.version().equals(info.version())) {
+                return cached;
+            }
+        }
+
+        byte[] original = studentRepo.findPhotoByStudentId(studentId);
+        if (original == null || original.length == 0) {
+            return null;
+        }
+
+        Photo photo = new Photo(resize(original, size), "image/jpeg", info.version());
+        put(key, photo);
+        return photo;
+    }
+
+    /**
+     * Streams the original upload from the database to the output, without holding it in memory
+     */
+    public void writeOriginal(String studentId, OutputStream out) {
+        jdbcTemplate.query(ORIGINAL_PHOTO_SQL, (RowCallbackHandler) rs -> {
+            try (InputStream in = rs.getBinaryStream(1)) {
+                if (in != null) {
+                    in.transferTo(out);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, studentId);
+    }
+
+    /**
+     * Replaces the student's photo together with its version, content type and upload time.
+     * Photo uploads must go through here so the version always matches the stored photo.
+     */
+    @Transactional
+    public void storePhoto(String studentId, byte[] photo) {
+        boolean present = photo != null && photo.length > 0;
+        studentRepo.updatePhoto(
+                studentId,
+                present ? photo : null,
+                present ? hash(photo) : null,
+                present ? contentTypeOf(photo) : null,
+                LocalDateTime.now(clock));
+        // The update bypasses Hibernate, so nothing else evicts this node's copy
+        evict(studentId);
+    }
+
+    /**
+     * Strong ETag of a photo variant; size 0 is the original
+     */
+    public static String etag(String version, int size) {
+        return size == 0 ? '"' + version + '"' : '"' + version + "-" + size + '"';
+    }
+
+    /**
+     * Forgets everything cached for the student, used when the photo is replaced
+     */
+    public void evict(String studentId) {
+        infos.remove(studentId);
+        evictPhotos(studentId);
+    }
+
+    /**
+     * Drops expired versions, so students not seen for a while don't stay in memory
+     */
+    @Scheduled(fixedDelay = DashboardMealWindowCache.TIME_TO_LIVE_MILLIS)
+    public void purgeExpiredVersions() {
+        long now = System.currentTimeMillis();
+        infos.values().removeIf(info -> !info.isFresh(now));
+    }
+
+    private static String versionOf(PhotoInfo info) {
+        return info != null ? info.version() : null;
+    }
+
+    private void evictPhotos(String studentId) {
+        synchronized (photos) {
+            Iterator<Map.Entry<String, Photo>> it = photos.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Photo> entry = it.next();
+                if (entry.getKey().startsWith(studentId + ":")) {
+                    cachedBytes -= entry.getValue().bytes().length;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private void put(String key, Photo photo) {
+        synchronized (photos) {
+            Photo previous = photos.put(key, photo);
+            if (previous != null) {
+                cachedBytes -= previous.bytes().length;
+            }
+            cachedBytes += photo.bytes().length;
+
+            // Drop least recently used photos until the cache fits its budget again
+            Iterator<Photo> it = photos.values().iterator();
+            while (cachedBytes > MAX_CACHED_BYTES && it.hasNext()) {
+                cachedBytes -= it.next().bytes().length;
+                it.remove();
+            }
+        }
+    }
+
+    private byte[] resize(byte[] original, int size) {
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(original));
+            if (source == null) {
+                throw new IllegalStateException("Stored photo is not a readable image");
+            }
+
+            double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+            BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = target.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                g.dispose();
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(target, "jpg", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not resize photo", e);
+        }
+    }
+
+    private String contentTypeOf(byte[] bytes) {
+        if (bytes.length > 3 && (bytes[0] & 0xFF) == 0x89 && bytes[1] == 'P' && bytes[2] == 'N' && bytes[3] == 'G') {
+            return "image/png";
+        }
+        if (bytes.length > 2 && bytes[0] == 'G' && bytes[1] == 'I' && bytes[2] == 'F') {
+            return "image/gif";
+        }
+        return "image/jpeg";
+    }
+
+    private String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Photo(byte[] bytes, String contentType, String version) {
+    }
+
+    public record PhotoInfo(String version, String contentType, Instant updatedAt) {
+    }
+
+    private record CachedInfo(PhotoInfo info, long checkedAt) {
+
+        boolean isFresh(long now) {
+            return now - checkedAt < DashboardMealWindowCache.TIME_TO_LIVE_MILLIS;
+        }
+    }
+}
\ No newline at end of file
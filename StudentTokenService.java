@@ -0,0 +1,106 @@
+package com.example.School_feeding_managment_system.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Issues and verifies compact signed student tokens.
+ * A token only carries the role, the expiry and the student id, signed with HMAC-SHA256,
+ * so resolving the logged-in student needs neither the servlet session nor the database,
+ * and any app node sharing the secret can verify it.
+ */
+@Service
+public class StudentTokenService {
+
+    private static final String ROLE = "STUDENT";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final byte[] secret;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final ThreadLocal<Mac> macs;
+
+    public StudentTokenService(@Value("${sfms.auth.token-secret}") String secret,
+                               @Value("${sfms.auth.token-ttl-minutes:720}") long ttlMinutes,
+                               Clock clock) {
+        if (secret == null || secret.length() < 32) {
+            throw new IllegalStateException("sfms.auth.token-secret must be at least 32 characters");
+        }
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.timeToLive = Duration.ofMinutes(ttlMinutes);
+        this.clock = clock;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public String issue(String studentId) {
+        long expiresAt = clock.instant().plus(timeToLive).getEpochSecond();
+        // Student id last, so it may contain the separator
+        String payload = ROLE + ":" + expiresAt + ":" + studentId;
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * Returns the student id of a valid, unexpired token, or null for anything else
+     */
+    public String resolveStudentId(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payloadBytes = decoder.decode(token.substring(0, dot));
+            byte[] signature = decoder.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(payloadBytes))) {
+                return null;
+            }
+
+            String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split(":", 3);
+            if (parts.length != 3 || !ROLE.equals(parts[0])) {
+                return null;
+            }
+            if (clock.instant().getEpochSecond() > Long.parseLong(parts[1])) {
+                return null;
+            }
+            return parts[2];
+        } catch (IllegalArgumentException e) {
+            // Malformed base64 or expiry
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret, ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise token signing", e);
+        }
+    }
+}
\ No newline at end of file
@@ -1,45 +1,89 @@
 package com.example.School_feeding_managment_system.Service;
 
+import com.example.School_feeding_managment_system.DTO.DeliveryResultDTO;
 import com.example.School_feeding_managment_system.DTO.VendorDashboardDTO;
+import com.example.School_feeding_managment_system.DTO.VendorMealPageDTO;
 import com.example.School_feeding_managment_system.Model.*;
 import com.example.School_feeding_managment_system.Repository.*;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Clock;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class VendorDashboardService {
 
+    private static final Logger log = LoggerFactory.getLogger(VendorDashboardService.class);
+
     @Autowired private StaffRepository staffRepository;
     @Autowired private MealPlanRepository mealPlanRepository;
     @Autowired private MealPlanService mealPlanService;
     @Autowired private FoodRepository foodRepository;
     @Autowired private MealDeliveryDetailRepository deliveryDetailRepository;
-    @Autowired private DeliveryApprovalRepository deliveryApprovalRepository;
+    @Autowired private ApprovalStateIndex approvalIndex;
+    @Autowired private DashboardMetrics metrics;
+    @Autowired private Clock clock;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    // Each plan of a bulk delivery commits on its own
+    private TransactionTemplate perPlanTransaction;
+
+    private static final int DASHBOARD_DAYS_BEFORE = 30;
+    private static final int DASHBOARD_DAYS_AFTER = 30;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @PostConstruct
+    void initPerPlanTransaction() {
+        perPlanTransaction = new TransactionTemplate(transactionManager);
+        perPlanTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     public VendorDashboardDTO getDashboard(Long vendorId) {
-        Staff vendor = staffRepository.findById(vendorId)
+        return metrics.time("vendor_dashboard", () -> buildDashboard(vendorId));
+    }
+
+    private VendorDashboardDTO buildDashboard(Long vendorId) {
+        Staff vendor = metrics.query("vendor_lookup", () -> staffRepository.findById(vendorId))
                 .orElseThrow(() -> new IllegalArgumentException("Vendor not found"));
         if (!"VENDOR".equalsIgnoreCase(vendor.getRole().getName())) {
             throw new IllegalArgumentException("Not a vendor");
         }
 
-        List<MealPlan> assignedMeals = mealPlanRepository.findByVendorId(vendorId);
+        // The dashboard only shows a bounded window; older history is paged through getMealHistory.
+        // Foods are fetched with the plans so nutrition is computed without lazy loading
+        LocalDate today = LocalDate.now(clock);
+        List<MealPlan> assignedMeals = metrics.query("meal_plan_fetch",
+                () -> mealPlanRepository.findByVendorIdAndDateBetweenWithFoods(
+                        vendorId, today.minusDays(DASHBOARD_DAYS_BEFORE), today.plusDays(DASHBOARD_DAYS_AFTER)));
 
-        assignedMeals.forEach(mealPlan -> {
-            mealPlanService.calculateNutrition(mealPlan);
+        List<Long> mealPlanIds = assignedMeals.stream()
+                .map(MealPlan::getId)
+                .collect(Collectors.toList());
+        Map<Long, ApprovalStateIndex.ApprovalState> latestApprovals =
+                metrics.stage("vendor_approval_check", () -> approvalIndex.getStates(mealPlanIds));
+        Set<Long> deliveredPlanIds = findMealPlanIdsWithDeliveries(mealPlanIds);
 
-            List<DeliveryApproval> approvals = deliveryApprovalRepository
-                    .findLatestByMealPlanId(mealPlan.getId());
+        metrics.stage("nutrition", () -> assignedMeals.forEach(mealPlanService::calculateNutrition));
 
-            if (!approvals.isEmpty()) {
-                DeliveryApproval latest = approvals.get(0);
-                mealPlan.setApprovalStatus(latest.getStatus().name());
-                mealPlan.setApprovalReason(latest.getReason());
-            } else if (deliveryDetailRepository.findByMealPlanId(mealPlan.getId()).size() > 0) {
+        assignedMeals.forEach(mealPlan -> {
+            ApprovalStateIndex.ApprovalState latest = latestApprovals.get(mealPlan.getId());
+
+            if (latest != null) {
+                mealPlan.setApprovalStatus(latest.status().name());
+                mealPlan.setApprovalReason(latest.reason());
+            } else if (deliveredPlanIds.contains(mealPlan.getId())) {
                 mealPlan.setApprovalStatus("PENDING_APPROVAL");
             } else {
                 mealPlan.setApprovalStatus(null);
@@ -64,18 +108,99 @@ public class VendorDashboardService {
 
     public List<MealPlan> getMealsByDayOfWeek(Long vendorId, DayOfWeek day) {
         validateVendor(vendorId);
-        return mealPlanRepository.findByVendorId(vendorId).stream()
-                .filter(m -> m.getDate().getDayOfWeek() == day)
-                .collect(Collectors.toList());
+        return mealPlanRepository.findByVendorIdAndDayOfWeek(vendorId, toSqlDayOfWeek(day));
+    }
+
+    /**
+     * Vendor meal history, newest first, one page at a time.
+     * Pages are keyed on the (date, id) of the last meal of the previous page instead of an offset,
+     * so every page costs the same no matter how deep into the history the vendor goes.
+     * All filters are optional and applied by the database.
+     */
+    public VendorMealPageDTO getMealHistory(Long vendorId, LocalDate fromDate, LocalDate toDate, DayOfWeek day,
+                                            LocalDate afterDate, Long afterId, Integer size) {
+        validateVendor(vendorId);
+        if ((afterDate == null) != (afterId == null)) {
+            throw new IllegalArgumentException("Both cursor date and cursor id are required to fetch the next page");
+        }
+
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Integer sqlDay = day != null ? toSqlDayOfWeek(day) : null;
+
+        // Ask for one extra row to know whether another page follows
+        List<MealPlan> meals = mealPlanRepository.findHistoryPage(
+                vendorId, fromDate, toDate, sqlDay, afterDate, afterId, PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = meals.size() > pageSize;
+        if (hasMore) {
+            meals = meals.subList(0, pageSize);
+        }
+
+        MealPlan last = meals.isEmpty() ? null : meals.get(meals.size() - 1);
+        return new VendorMealPageDTO(
+                meals,
+                hasMore ? last.getDate() : null,
+                hasMore ? last.getId() : null,
+                hasMore
+        );
     }
 
     public MealPlan startPreparation(Long mealId, Long vendorId) {
         return mealPlanService.startPreparation(mealId, vendorId);
     }
 
+    @Transactional
     public MealPlan markDelivered(Long mealId, Long vendorId, List<MealDeliveryDetail> suppliedDetails) {
         MealPlan meal = mealPlanRepository.findById(mealId)
                 .orElseThrow(() -> new IllegalArgumentException("Meal not found"));
+        validateDelivery(meal, vendorId, suppliedDetails);
+
+        suppliedDetails.forEach(d -> d.setMealPlan(meal));
+        deliveryDetailRepository.saveAll(suppliedDetails);
+        return mealPlanService.markDelivered(meal, vendorId);
+    }
+
+    /**
+     * Marks many meal plans delivered at once and returns one result per plan, in the order given.
+     * Each plan is loaded, validated and written in its own transaction, so validation sees the
+     * plan as it is at that moment and a plan that fails is reported and left untouched without
+     * rolling back the others.
+     */
+    public List<DeliveryResultDTO> markDeliveredBulk(Long vendorId, Map<Long, List<MealDeliveryDetail>> detailsByMealId) {
+        if (detailsByMealId == null || detailsByMealId.isEmpty()) {
+            throw new IllegalArgumentException("Delivery details are required");
+        }
+
+        List<DeliveryResultDTO> results = new ArrayList<>(detailsByMealId.size());
+        detailsByMealId.forEach((mealId, suppliedDetails) ->
+                results.add(deliverOne(vendorId, mealId, suppliedDetails)));
+        return results;
+    }
+
+    private DeliveryResultDTO deliverOne(Long vendorId, Long mealId, List<MealDeliveryDetail> suppliedDetails) {
+        try {
+            MealPlan delivered = perPlanTransaction.execute(status -> {
+                // Managed by this transaction, so validation and the status change see the same row
+                MealPlan meal = mealPlanRepository.findById(mealId)
+                        .orElseThrow(() -> new IllegalArgumentException("Meal not found"));
+                validateDelivery(meal, vendorId, suppliedDetails);
+
+                suppliedDetails.forEach(d -> d.setMealPlan(meal));
+                // Batched by Hibernate when hibernate.jdbc.batch_size and order_inserts are set
+                deliveryDetailRepository.saveAll(suppliedDetails);
+                return mealPlanService.markDelivered(meal, vendorId);
+            });
+            return new DeliveryResultDTO(mealId, true, delivered.getStatus().name(), null);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return new DeliveryResultDTO(mealId, false, null, e.getMessage());
+        } catch (RuntimeException e) {
+            // Only this plan's transaction was rolled back; the rest of the batch goes on
+            log.warn("Bulk delivery of meal plan {} by vendor {} failed", mealId, vendorId, e);
+            return new DeliveryResultDTO(mealId, false, null, "Could not mark this meal delivered");
+        }
+    }
+
+    private void validateDelivery(MealPlan meal, Long vendorId, List<MealDeliveryDetail> suppliedDetails) {
         if (!meal.getVendor().getId().equals(vendorId)) {
             throw new IllegalArgumentException("This meal is not assigned to you");
         }
@@ -98,11 +223,22 @@ public class VendorDashboardService {
             throw new IllegalArgumentException(
                     "Total supplied quantity (" + totalSupplied + ") does not match planned quantity (" + meal.getQuantity() + ")");
         }
-        suppliedDetails.forEach(d -> {
-            d.setMealPlan(meal);
-            deliveryDetailRepository.save(d);
-        });
-        return mealPlanService.markDelivered(mealId, vendorId);
+    }
+
+    /**
+     * Ids of the meal plans that already have delivery details, without loading the details
+     */
+    private Set<Long> findMealPlanIdsWithDeliveries(List<Long> mealPlanIds) {
+        if (mealPlanIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(metrics.query("vendor_delivery_check",
+                () -> deliveryDetailRepository.findMealPlanIdsHavingDetails(mealPlanIds)));
+    }
+
+    // SQL DAYOFWEEK numbering: 1 = Sunday ... 7 = Saturday
+    private int toSqlDayOfWeek(DayOfWeek day) {
+        return day.getValue() % 7 + 1;
     }
 
     private void validateVendor(Long vendorId) {
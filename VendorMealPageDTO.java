@@ -0,0 +1,41 @@
+package com.example.School_feeding_managment_system.DTO;
+
+import com.example.School_feeding_managment_system.Model.MealPlan;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One page of a vendor's meal history.
+ * Pass nextCursorDate and nextCursorId back to fetch the following page.
+ */
+public class VendorMealPageDTO {
+
+    private final List<MealPlan> meals;
+    private final LocalDate nextCursorDate;
+    private final Long nextCursorId;
+    private final boolean hasMore;
+
+    public VendorMealPageDTO(List<MealPlan> meals, LocalDate nextCursorDate, Long nextCursorId, boolean hasMore) {
+        this.meals = meals;
+        this.nextCursorDate = nextCursorDate;
+        this.nextCursorId = nextCursorId;
+        this.hasMore = hasMore;
+    }
+
+    public List<MealPlan> getMeals() {
+        return meals;
+    }
+
+    public LocalDate getNextCursorDate() {
+        return nextCursorDate;
+    }
+
+    public Long getNextCursorId() {
+        return nextCursorId;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
\ No newline at end of file